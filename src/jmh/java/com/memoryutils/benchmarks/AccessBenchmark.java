@@ -0,0 +1,106 @@
+package com.memoryutils.benchmarks;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.memoryutils.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading and writing single values with the {@code memget_*} and
+ * {@link Memory#memput(long, long)} methods, against the absolute get and put
+ * methods of a direct {@link ByteBuffer}.
+ *
+ * @author  Jack Green (ja-green)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessBenchmark {
+  long       pointer;
+  long       value = 0x0123456789ABCDEFL;
+  ByteBuffer buffer;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    pointer = Memory.calloc(64);
+    buffer  = ByteBuffer.allocateDirect(64).order(ByteOrder.nativeOrder());
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() {
+    Memory.free(pointer);
+  }
+
+  @Benchmark
+  public byte memget_b() {
+    return Memory.memget_b(pointer + 8);
+  }
+
+  @Benchmark
+  public short memget_s() {
+    return Memory.memget_s(pointer + 8);
+  }
+
+  @Benchmark
+  public int memget_i() {
+    return Memory.memget_i(pointer + 8);
+  }
+
+  @Benchmark
+  public long memget_l() {
+    return Memory.memget_l(pointer + 8);
+  }
+
+  @Benchmark
+  public void memput_i() {
+    Memory.memput(pointer + 8, (int) value);
+  }
+
+  @Benchmark
+  public void memput_l() {
+    Memory.memput(pointer + 8, value);
+  }
+
+  @Benchmark
+  public long byte_buffer_get_long() {
+    return buffer.getLong(8);
+  }
+
+  @Benchmark
+  public void byte_buffer_put_long() {
+    buffer.putLong(8, value);
+  }
+}
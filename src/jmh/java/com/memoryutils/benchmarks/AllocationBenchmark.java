@@ -0,0 +1,85 @@
+package com.memoryutils.benchmarks;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.memoryutils.Memory;
+import com.memoryutils.SlabAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures allocating and freeing a block with {@link Memory#malloc(long)},
+ * {@link Memory#calloc(long)}, {@link Memory#realloc(long, long)} and
+ * {@link SlabAllocator}, against {@link ByteBuffer#allocateDirect(int)}.
+ *
+ * @author  Jack Green (ja-green)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocationBenchmark {
+
+  @Param({ "16", "256", "4096", "65536", "1048576" })
+  int bytes;
+
+  @Benchmark
+  public void malloc_free() {
+    Memory.free(Memory.malloc(bytes));
+  }
+
+  @Benchmark
+  public void calloc_free() {
+    Memory.free(Memory.calloc(bytes));
+  }
+
+  @Benchmark
+  public void malloc_realloc_free() {
+    long pointer = Memory.malloc(bytes);
+
+    pointer = Memory.realloc(pointer, bytes << 1);
+
+    Memory.free(pointer);
+  }
+
+  @Benchmark
+  public void slab_malloc_free() {
+    SlabAllocator.free(SlabAllocator.malloc(bytes));
+  }
+
+  /*
+   * The buffer is freed by the garbage collector, so the cost
+   * of freeing is spread over later iterations.
+   */
+  @Benchmark
+  public ByteBuffer allocate_direct() {
+    return ByteBuffer.allocateDirect(bytes);
+  }
+}
@@ -0,0 +1,49 @@
+package com.memoryutils.benchmarks;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+
+/**
+ * Helpers shared by the benchmarks for setting up baselines.
+ *
+ * @author  Jack Green (ja-green)
+ */
+final class Baselines {
+
+  /*
+   * Suppresses default constructor, ensuring non-instantiability.
+   */
+  private Baselines() {}
+
+  /*
+   * Gets sun.misc.Unsafe, to compare against calling it directly.
+   */
+  static Unsafe unsafe() {
+    try {
+      Field field = Unsafe.class.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+
+      return (Unsafe) field.get(null);
+
+    } catch (ReflectiveOperationException ex) {
+      throw new AssertionError(ex);
+    }
+  }
+}
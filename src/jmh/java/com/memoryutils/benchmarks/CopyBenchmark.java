@@ -0,0 +1,110 @@
+package com.memoryutils.benchmarks;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.memoryutils.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sun.misc.Unsafe;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Memory#memcpy(long, long, long)} and {@link Memory#memmove(long, long, long)}
+ * from 1 byte to 64 megabytes, against calling {@code Unsafe.copyMemory} directly and
+ * copying between direct {@link ByteBuffer}s.
+ *
+ * <p>The sizes either side of 5 bytes check that copying small blocks a
+ * byte at a time is still faster than {@code Unsafe.copyMemory}.
+ *
+ * @author  Jack Green (ja-green)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopyBenchmark {
+  private static final Unsafe UNSAFE = Baselines.unsafe();
+
+  @Param({ "1", "2", "4", "5", "8", "16", "64", "256", "4096", "65536", "1048576", "67108864" })
+  int bytes;
+
+  long src;
+  long dest;
+
+  ByteBuffer src_buffer;
+  ByteBuffer dest_buffer;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    src  = Memory.calloc(bytes);
+    dest = Memory.calloc(bytes);
+
+    src_buffer  = ByteBuffer.allocateDirect(bytes);
+    dest_buffer = ByteBuffer.allocateDirect(bytes);
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() {
+    Memory.free(src);
+    Memory.free(dest);
+  }
+
+  @Benchmark
+  public void memcpy() {
+    Memory.memcpy(dest, src, bytes);
+  }
+
+  @Benchmark
+  public void memmove() {
+    Memory.memmove(dest, src, bytes);
+  }
+
+  /*
+   * Overlapping by half the block, the case memcpy cannot handle.
+   */
+  @Benchmark
+  public void memmove_overlapping() {
+    Memory.memmove(dest + (bytes >> 1), dest, bytes - (bytes >> 1));
+  }
+
+  @Benchmark
+  public void copy_memory() {
+    UNSAFE.copyMemory(src, dest, bytes);
+  }
+
+  @Benchmark
+  public void byte_buffer() {
+    src_buffer.clear();
+    dest_buffer.clear();
+    dest_buffer.put(src_buffer);
+  }
+}
@@ -0,0 +1,120 @@
+package com.memoryutils.benchmarks;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.memoryutils.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures scanning memory with {@link Memory#memchr(long, byte, long)},
+ * {@link Memory#memrchr(long, byte, long)}, {@link Memory#strlen(long)},
+ * {@link Memory#memcmp(long, long, long)}, {@link Memory#memcmp_lex(long, long, long)}
+ * and {@link Memory#popcount(long, long)}, against comparing direct {@link ByteBuffer}s.
+ *
+ * <p>Every search finds its match in the last byte scanned and every
+ * comparison is of equal blocks, so the whole block is always read.
+ *
+ * @author  Jack Green (ja-green)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+  @Param({ "16", "256", "4096", "65536", "1048576" })
+  int bytes;
+
+  long pointer1;
+  long pointer2;
+
+  ByteBuffer buffer1;
+  ByteBuffer buffer2;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    pointer1 = Memory.malloc(bytes);
+    pointer2 = Memory.malloc(bytes);
+
+    Memory.memset(pointer1, (byte) 'a', bytes);
+    Memory.memput(pointer1, (byte) 'b');
+    Memory.memput(pointer1 + bytes - 1, (byte) 0);
+
+    Memory.memcpy(pointer2, pointer1, bytes);
+
+    buffer1 = ByteBuffer.allocateDirect(bytes);
+    buffer2 = ByteBuffer.allocateDirect(bytes);
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() {
+    Memory.free(pointer1);
+    Memory.free(pointer2);
+  }
+
+  @Benchmark
+  public long memchr() {
+    return Memory.memchr(pointer1, (byte) 0, bytes);
+  }
+
+  @Benchmark
+  public long memrchr() {
+    return Memory.memrchr(pointer1, (byte) 'b', bytes);
+  }
+
+  @Benchmark
+  public long strlen() {
+    return Memory.strlen(pointer1);
+  }
+
+  @Benchmark
+  public boolean memcmp() {
+    return Memory.memcmp(pointer1, pointer2, bytes);
+  }
+
+  @Benchmark
+  public int memcmp_lex() {
+    return Memory.memcmp_lex(pointer1, pointer2, bytes);
+  }
+
+  @Benchmark
+  public long popcount() {
+    return Memory.popcount(pointer1, bytes);
+  }
+
+  @Benchmark
+  public boolean byte_buffer_equals() {
+    return buffer1.equals(buffer2);
+  }
+}
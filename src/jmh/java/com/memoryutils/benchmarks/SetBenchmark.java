@@ -0,0 +1,101 @@
+package com.memoryutils.benchmarks;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.memoryutils.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sun.misc.Unsafe;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures filling memory with {@link Memory#memset(long, byte, long)} and copying
+ * arrays in with {@link Memory#memset(long, long[])} and
+ * {@link Memory#memput(byte[], int, long, int)}, against {@code Unsafe.setMemory}
+ * and {@link ByteBuffer#put(byte[])} on a direct buffer.
+ *
+ * @author  Jack Green (ja-green)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetBenchmark {
+  private static final Unsafe UNSAFE = Baselines.unsafe();
+
+  @Param({ "16", "256", "4096", "65536", "1048576" })
+  int bytes;
+
+  long       pointer;
+  long[]     longs;
+  byte[]     array;
+  ByteBuffer buffer;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    pointer = Memory.calloc(bytes);
+    longs   = new long[bytes >> 3];
+    array   = new byte[bytes];
+    buffer  = ByteBuffer.allocateDirect(bytes);
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() {
+    Memory.free(pointer);
+  }
+
+  @Benchmark
+  public void memset() {
+    Memory.memset(pointer, (byte) 1, bytes);
+  }
+
+  @Benchmark
+  public void set_memory() {
+    UNSAFE.setMemory(pointer, bytes, (byte) 1);
+  }
+
+  @Benchmark
+  public void memset_long_array() {
+    Memory.memset(pointer, longs);
+  }
+
+  @Benchmark
+  public void memput_byte_array() {
+    Memory.memput(array, 0, pointer, bytes);
+  }
+
+  @Benchmark
+  public void byte_buffer_array() {
+    buffer.clear();
+    buffer.put(array);
+  }
+}
@@ -0,0 +1,119 @@
+package com.memoryutils.benchmarks;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.memoryutils.Memory;
+import com.memoryutils.StructCodec;
+import com.memoryutils.StructView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Memory#sizeof(Object)}, copying an object to and from off-heap
+ * memory with {@link Memory#memput(long, Object)} and {@link Memory#memget_object(long, Class)},
+ * and the generated {@link StructCodec} and {@link StructView} which do the same
+ * without reflection.
+ *
+ * @author  Jack Green (ja-green)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StructBenchmark {
+
+  public static class Struct {
+    long    a = 1;
+    double  b = 2;
+    int     c = 3;
+    float   d = 4;
+    short   e = 5;
+    char    f = 6;
+    byte    g = 7;
+    boolean h = true;
+  }
+
+  long                pointer;
+  Struct              struct = new Struct();
+  StructCodec<Struct> codec  = StructCodec.of(Struct.class);
+  StructView          view   = new StructView(Struct.class);
+  int                 field_c;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    pointer = Memory.calloc(codec.size());
+    field_c = view.index("c");
+
+    Memory.memput(pointer, struct);
+    view.wrap(pointer);
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() {
+    Memory.free(pointer);
+  }
+
+  @Benchmark
+  public long sizeof_class() {
+    return Memory.sizeof(Struct.class);
+  }
+
+  @Benchmark
+  public long sizeof_object() {
+    return Memory.sizeof(struct);
+  }
+
+  @Benchmark
+  public void memput_object() {
+    Memory.memput(pointer, struct);
+  }
+
+  @Benchmark
+  public Object memget_object() {
+    return Memory.memget_object(pointer, Struct.class);
+  }
+
+  @Benchmark
+  public void codec_write() {
+    codec.write(struct, pointer);
+  }
+
+  @Benchmark
+  public Struct codec_read() {
+    return codec.read(pointer);
+  }
+
+  @Benchmark
+  public int view_get() {
+    return view.get_i(field_c);
+  }
+}
@@ -0,0 +1,108 @@
+package com.memoryutils.benchmarks;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link MemorySegment} equivalents of the benchmarks of {@code Memory}, with
+ * the same sizes, to compare against on JDK 22 and above. Each benchmark is named
+ * after the {@code Memory} method it corresponds to.
+ *
+ * @author  Jack Green (ja-green)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SegmentBenchmark {
+
+  @Param({ "16", "256", "4096", "65536", "1048576" })
+  int bytes;
+
+  Arena         arena;
+  MemorySegment src;
+  MemorySegment dest;
+  MemorySegment copy;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    arena = Arena.ofConfined();
+    src   = arena.allocate(bytes, 16);
+    dest  = arena.allocate(bytes, 16);
+    copy  = arena.allocate(bytes, 16);
+
+    src.set(ValueLayout.JAVA_BYTE, bytes - 1, (byte) 1);
+    copy.copyFrom(src);
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() {
+    arena.close();
+  }
+
+  @Benchmark
+  public void malloc_free() {
+    try (Arena a = Arena.ofConfined()) {
+      a.allocate(bytes, 16);
+    }
+  }
+
+  @Benchmark
+  public void memcpy() {
+    MemorySegment.copy(src, 0, dest, 0, bytes);
+  }
+
+  @Benchmark
+  public void memset() {
+    dest.fill((byte) 1);
+  }
+
+  @Benchmark
+  public long memcmp() {
+    return src.mismatch(copy);
+  }
+
+  @Benchmark
+  public long memget_l() {
+    return src.get(ValueLayout.JAVA_LONG_UNALIGNED, 8);
+  }
+
+  @Benchmark
+  public void memput_l() {
+    dest.set(ValueLayout.JAVA_LONG_UNALIGNED, 8, 0x0123456789ABCDEFL);
+  }
+}
@@ -0,0 +1,215 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+
+/**
+ * A region allocator which hands out sub-allocations from large chunks
+ * of off-heap memory obtained using {@link Memory#malloc(long)}.
+ *
+ * <p>Each call to {@link #alloc(long)} is a pointer increment into the
+ * current chunk. When a chunk is exhausted a new one is allocated. Individual
+ * allocations are never freed, instead every allocation made from the arena is
+ * released at once using {@link #reset()} or {@link #close()}.
+ *
+ * <p>This makes an arena well suited to many short-lived allocations sharing
+ * the same lifetime, e.g. records which only live for the duration of a request.
+ *
+ * <p>Arenas are not thread safe. Like the rest of this library, all checks use
+ * only the assert keyword.
+ *
+ * @author  Jack Green (ja-green)
+ * @see     Memory#malloc(long)
+ */
+public final class Arena implements AutoCloseable {
+  private static final long DEFAULT_CHUNK = 64 * Memory.KILOBYTE;
+  private static final long ALIGNMENT     = 8;
+
+  private final long chunk_size;
+
+  private long[] chunks = new long[4];
+  private int    chunk_cnt;
+
+  /*
+   * Dedicated chunks holding a single oversized request each.
+   */
+  private long[] large = new long[4];
+  private int    large_cnt;
+
+  private long   cursor;
+  private long   limit;
+  private long   held;
+
+  /**
+   * Creates an arena which allocates chunks of 64 kilobytes.
+   */
+  public Arena() {
+    this(DEFAULT_CHUNK);
+  }
+
+  /**
+   * Creates an arena which allocates chunks of {@code chunk_size} bytes.
+   *
+   * <p>No memory is allocated until the first call to {@link #alloc(long)}.
+   *
+   * @param   chunk_size the size (in bytes) of each chunk
+   */
+  public Arena(long chunk_size) {
+    assert chunk_size > 0;
+
+    this.chunk_size = chunk_size;
+  }
+
+  /**
+   * Allocates {@code bytes} bytes from the arena. Returns the lowest
+   * byte in the allocated block which is aligned to 8 bytes.
+   *
+   * <p>The allocated bytes will be uninitialised and
+   * therefore will generally be garbage.
+   *
+   * <p>Requests larger than the chunk size are given a dedicated chunk
+   * of their own, leaving the current chunk to serve later requests.
+   *
+   * @param   bytes the size (in bytes) to allocate
+   * @return  a pointer to the lowest byte
+   *          in the allocated memory block
+   */
+  public long alloc(long bytes) {
+    assert bytes >= 0;
+
+    long size = (bytes + ALIGNMENT - 1) & -ALIGNMENT;
+
+    if (size > chunk_size) return add_large(size);
+
+    if (size > limit - cursor) next_chunk();
+
+    long pointer = cursor;
+    cursor += size;
+
+    return pointer;
+  }
+
+  /**
+   * Allocates {@code bytes} bytes from the arena, initialised to null bytes.
+   *
+   * @param   bytes the size (in bytes) to allocate
+   * @return  a pointer to the lowest byte
+   *          in the allocated memory block
+   * @see     #alloc(long)
+   */
+  public long calloc(long bytes) {
+    long pointer = alloc(bytes);
+
+    Memory.memset(pointer, (byte) 0, bytes);
+
+    return pointer;
+  }
+
+  /**
+   * Releases every allocation made from the arena, keeping the first
+   * chunk so the arena can be reused without going back to
+   * {@link Memory#malloc(long)}.
+   *
+   * <p>Pointers previously returned by this arena must not be used
+   * after calling this method.
+   */
+  public void reset() {
+    free_large();
+
+    if (chunk_cnt == 0) {
+      held = 0;
+      return;
+    }
+
+    for (int i = 1; i < chunk_cnt; i++)
+      Memory.free(chunks[i]);
+
+    chunk_cnt = 1;
+    held      = chunk_size;
+    cursor    = chunks[0];
+    limit     = chunks[0] + chunk_size;
+  }
+
+  /**
+   * Frees every chunk held by the arena.
+   *
+   * <p>Pointers previously returned by this arena must not be used
+   * after calling this method. The arena may be used again afterwards
+   * and will allocate new chunks as needed.
+   */
+  @Override
+  public void close() {
+    free_large();
+
+    for (int i = 0; i < chunk_cnt; i++)
+      Memory.free(chunks[i]);
+
+    chunk_cnt = 0;
+    held      = 0;
+    cursor    = 0;
+    limit     = 0;
+  }
+
+  /**
+   * Gets the total amount of off-heap memory currently held by the arena.
+   *
+   * @return  the total size (in bytes) of all chunks held
+   */
+  public long capacity() {
+    return held;
+  }
+
+  /*
+   * Allocates a new chunk and makes it the current one.
+   */
+  private void next_chunk() {
+    if (chunk_cnt == chunks.length)
+      chunks = Arrays.copyOf(chunks, chunk_cnt << 1);
+
+    long pointer = Memory.malloc(chunk_size);
+
+    chunks[chunk_cnt++] = pointer;
+    held += chunk_size;
+
+    cursor = pointer;
+    limit  = pointer + chunk_size;
+  }
+
+  /*
+   * Allocates a dedicated chunk for an oversized request,
+   * leaving the current chunk as it is.
+   */
+  private long add_large(long size) {
+    if (large_cnt == large.length)
+      large = Arrays.copyOf(large, large_cnt << 1);
+
+    long pointer = Memory.malloc(size);
+
+    large[large_cnt++] = pointer;
+    held += size;
+
+    return pointer;
+  }
+
+  private void free_large() {
+    for (int i = 0; i < large_cnt; i++)
+      Memory.free(large[i]);
+
+    large_cnt = 0;
+  }
+}
@@ -0,0 +1,126 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import sun.misc.Unsafe;
+
+/**
+ * The raw memory operations which {@link Memory} is built on: allocating and
+ * freeing native memory, copying and filling it, and reading and writing
+ * primitives through a pointer.
+ *
+ * <p>There are two implementations. {@link UnsafeBackend} uses
+ * {@code sun.misc.Unsafe}, whose memory access methods are deprecated for removal.
+ * {@code ForeignBackend} uses the Foreign Function and Memory API, calling the C
+ * library's {@code malloc}, {@code realloc} and {@code free} and accessing memory
+ * through a single segment spanning the whole address space. It is compiled
+ * separately for JDK 22 and above and loaded by name, so {@link #load(Unsafe)}
+ * picks it automatically when running on JDK 22 or above.
+ *
+ * <p>The backend can be chosen with the system property
+ * {@code -Dcom.memoryutils.backend=unsafe} or {@code foreign}. On JDK 22 and above
+ * the foreign backend calls restricted methods, so the JVM prints a warning unless
+ * it is started with {@code --enable-native-access=com.memoryutils}, or
+ * {@code ALL-UNNAMED} when on the class path.
+ *
+ * <p>{@link Memory} holds the backend in a static final field, so the JIT
+ * compiler knows its exact class and inlines every call.
+ *
+ * @author  Jack Green (ja-green)
+ */
+interface Backend {
+
+  long  malloc(long bytes);
+
+  long  realloc(long pointer, long bytes);
+
+  void  free(long pointer);
+
+  void  copy(long src, long dest, long bytes);
+
+  void  set(long pointer, long bytes, byte val);
+
+  byte  get_b(long pointer);
+
+  short get_s(long pointer);
+
+  int   get_i(long pointer);
+
+  long  get_l(long pointer);
+
+  void  put(long pointer, byte val);
+
+  void  put(long pointer, short val);
+
+  void  put(long pointer, int val);
+
+  void  put(long pointer, long val);
+
+  /**
+   * Maps {@code bytes} bytes of anonymous memory from the reserved
+   * pool of huge pages of {@code page} bytes.
+   *
+   * @param   bytes the size (in bytes) to map, a multiple of {@code page}
+   * @param   page  the size (in bytes) of a huge page
+   * @return  a pointer aligned to {@code page}, or 0 if unsupported
+   *          or the pool has too few free pages
+   */
+  long  map_huge(long bytes, long page);
+
+  /**
+   * Maps {@code bytes} bytes of anonymous memory aligned to {@code page}
+   * and advises the kernel to back it with transparent huge pages.
+   *
+   * @param   bytes the size (in bytes) to map, a multiple of {@code page}
+   * @param   page  the size (in bytes) of a huge page
+   * @return  a pointer aligned to {@code page}, or 0 if unsupported
+   */
+  long  map_advised(long bytes, long page);
+
+  /**
+   * Unmaps memory mapped by {@link #map_huge(long, long)}
+   * or {@link #map_advised(long, long)}.
+   */
+  void  unmap(long pointer, long bytes);
+
+  /**
+   * Loads the backend named by {@code com.memoryutils.backend}, or the
+   * foreign backend if it is available and no backend is named, falling
+   * back to {@code unsafe}.
+   *
+   * @param   unsafe the {@code Unsafe} instance, or {@code null} if unavailable
+   * @return  the backend, or {@code null} if none is available
+   */
+  static Backend load(Unsafe unsafe) {
+    String name = System.getProperty("com.memoryutils.backend", "");
+
+    if (!name.equals("unsafe")) {
+      try {
+        return (Backend) Class.forName("com.memoryutils.ForeignBackend")
+          .getDeclaredConstructor()
+          .newInstance();
+
+      } catch (ReflectiveOperationException | LinkageError ex) {
+        if (name.equals("foreign"))
+          throw new UnsupportedOperationException("foreign backend requires JDK 22 or above", ex);
+      }
+    }
+
+    return (unsafe != null) ? new UnsafeBackend(unsafe) : null;
+  }
+}
@@ -0,0 +1,65 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A set of objects compared by identity which may be added to by many threads
+ * at once, used to mark the objects already visited while walking an object
+ * graph in parallel.
+ *
+ * <p>The set is split into stripes, each an {@link IdentitySet} guarded by its
+ * own lock and holding the objects whose hash falls in it, the stripe being
+ * chosen by the high bits of the hash and the slot within it by the low bits.
+ * With many more stripes than threads, two threads rarely contend for a lock.
+ *
+ * <p>Most objects in a graph are reached many times but added only once, so
+ * each stripe is first searched without taking its lock, and the lock is only
+ * taken to add an object which was not found.
+ *
+ * @author  Jack Green (ja-green)
+ */
+final class ConcurrentIdentitySet {
+  private final IdentitySet[] stripes;
+  private final int           shift;
+
+  ConcurrentIdentitySet(int threads) {
+    int count = Integer.highestOneBit(Math.max(threads, 1) * 64 - 1) << 1;
+
+    this.stripes = new IdentitySet[count];
+    this.shift   = 32 - Integer.numberOfTrailingZeros(count);
+
+    for (int i = 0; i < count; i++)
+      stripes[i] = new IdentitySet(64);
+  }
+
+  /**
+   * Adds {@code o} to this set.
+   *
+   * @param   o the object to add, not null
+   * @return  {@code true} if {@code o} was not already in this set
+   */
+  boolean add(Object o) {
+    int         hash   = IdentitySet.hash(o);
+    IdentitySet stripe = stripes[hash >>> shift];
+
+    if (stripe.contains(o, hash)) return false;
+
+    synchronized (stripe) {
+      return stripe.add(o, hash);
+    }
+  }
+}
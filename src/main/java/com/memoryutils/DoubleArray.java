@@ -0,0 +1,113 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/**
+ * A fixed length array of {@code double} values stored in off-heap memory
+ * and indexed by {@code long}, 8 bytes per element.
+ *
+ * @author  Jack Green (ja-green)
+ * @see     OffHeapArray
+ */
+public final class DoubleArray extends OffHeapArray {
+
+  /**
+   * Allocates an array of {@code length} elements, initialised to zero.
+   *
+   * @param   length the number of elements
+   */
+  public DoubleArray(long length) {
+    super(length, 3);
+  }
+
+  /**
+   * Gets the element at {@code index}.
+   *
+   * @param   index the index of the element
+   * @return  the element
+   */
+  public double get(long index) {
+    return Double.longBitsToDouble(Memory.memget_l(address(index)));
+  }
+
+  /**
+   * Sets the element at {@code index} to {@code val}.
+   *
+   * @param   index the index of the element
+   * @param   val   the value to set
+   */
+  public void set(long index, double val) {
+    Memory.memput(address(index), Double.doubleToRawLongBits(val));
+  }
+
+  /**
+   * Sets every element of this array to {@code val}.
+   *
+   * @param   val the value to set
+   */
+  public void fill(double val) {
+    if (length == 0) return;
+
+    set(0, val);
+    fill_from_first();
+  }
+
+  /**
+   * Copies {@code count} elements of {@code src} starting at {@code src_index}
+   * into this array starting at {@code index}.
+   *
+   * @param   src       the array to copy from
+   * @param   src_index the index of the first element of src to copy
+   * @param   index     the index in this array to copy to
+   * @param   count     the number of elements to copy
+   */
+  public void copy_from(double[] src, int src_index, long index, int count) {
+    check(index, count);
+
+    Memory.memput(src, src_index, pointer + (index << 3), count);
+  }
+
+  /**
+   * Copies {@code count} elements of this array starting at {@code index}
+   * into {@code dest} starting at {@code dest_index}.
+   *
+   * @param   index      the index of the first element of this array to copy
+   * @param   dest       the array to copy to
+   * @param   dest_index the index in dest to copy to
+   * @param   count      the number of elements to copy
+   */
+  public void copy_to(long index, double[] dest, int dest_index, int count) {
+    check(index, count);
+
+    Memory.memget(pointer + (index << 3), dest, dest_index, count);
+  }
+
+  /**
+   * Copies {@code count} elements of this array starting at {@code src_index}
+   * into {@code dest} starting at {@code dest_index}. The arrays may be the
+   * same and the ranges may overlap.
+   *
+   * @param   src_index  the index of the first element of this array to copy
+   * @param   dest       the array to copy to
+   * @param   dest_index the index in dest to copy to
+   * @param   count      the number of elements to copy
+   */
+  public void copy(long src_index, DoubleArray dest, long dest_index, long count) {
+    super.copy(src_index, dest, dest_index, count);
+  }
+}
@@ -0,0 +1,135 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The retained size of an object graph, as measured by
+ * {@link Memory#sizeof_parallel(Object)}, broken down by class.
+ *
+ * <p>For each class the number of instances reachable from the root and the
+ * number of bytes they take on the heap are recorded, the totals being the
+ * sum over every class.
+ *
+ * @author  Jack Green (ja-green)
+ * @see     Memory#sizeof_parallel(Object)
+ */
+public final class HeapHistogram {
+  private final Map<Class<?>, long[]> classes;
+  private final long                  count;
+  private final long                  bytes;
+
+  HeapHistogram(Map<Class<?>, long[]> classes) {
+    long count = 0;
+    long bytes = 0;
+
+    for (long[] totals : classes.values()) {
+      count += totals[0];
+      bytes += totals[1];
+    }
+
+    this.classes = classes;
+    this.count   = count;
+    this.bytes   = bytes;
+  }
+
+  /**
+   * Gets the number of objects in the graph.
+   *
+   * @return  the number of objects
+   */
+  public long count() {
+    return count;
+  }
+
+  /**
+   * Gets the number of bytes retained by the graph.
+   *
+   * @return  the retained size in bytes
+   */
+  public long bytes() {
+    return bytes;
+  }
+
+  /**
+   * Gets the number of instances of {@code clazz} in the graph,
+   * not including instances of its subclasses.
+   *
+   * @param   clazz the class
+   * @return  the number of instances, or 0 if there are none
+   */
+  public long count(Class<?> clazz) {
+    long[] totals = classes.get(clazz);
+
+    return (totals == null) ? 0 : totals[0];
+  }
+
+  /**
+   * Gets the number of bytes taken by instances of {@code clazz}
+   * in the graph, not including instances of its subclasses.
+   *
+   * @param   clazz the class
+   * @return  the size in bytes, or 0 if there are no instances
+   */
+  public long bytes(Class<?> clazz) {
+    long[] totals = classes.get(clazz);
+
+    return (totals == null) ? 0 : totals[1];
+  }
+
+  /**
+   * Gets the classes with at least one instance in the graph.
+   *
+   * @return  an unmodifiable set of the classes
+   */
+  public Set<Class<?>> classes() {
+    return Collections.unmodifiableSet(classes.keySet());
+  }
+
+  /**
+   * Describes the instances of each class in the graph,
+   * largest total first.
+   *
+   * @return  a human readable report of the graph
+   */
+  public String report() {
+    List<Map.Entry<Class<?>, long[]>> entries = new ArrayList<>(classes.entrySet());
+    entries.sort((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+
+    StringBuilder sb = new StringBuilder()
+      .append(count).append(" objects, ")
+      .append(bytes).append(" bytes\n\n");
+
+    for (Map.Entry<Class<?>, long[]> entry : entries) {
+      sb.append(entry.getValue()[0]).append(" objects, ")
+        .append(entry.getValue()[1]).append(" bytes, ")
+        .append(entry.getKey().getName()).append('\n');
+    }
+
+    return sb.toString();
+  }
+
+  @Override
+  public String toString() {
+    return count + " objects, " + bytes + " bytes";
+  }
+}
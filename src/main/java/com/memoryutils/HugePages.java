@@ -0,0 +1,235 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memory backed by huge pages, allocated by {@link Memory#malloc_huge(long)}.
+ *
+ * <p>A table tens of gigabytes in size spread over 4 KB pages needs millions of
+ * page table entries, far more than the TLB holds, so random access to it misses
+ * the TLB on almost every read. Backing it with 2 MB pages cuts the entries needed
+ * by a factor of 512.
+ *
+ * <p>Regions are taken from the first of these which succeeds:
+ * <ol>
+ *   <li>the reserved pool of huge pages, mapped by the backend</li>
+ *   <li>a file on a {@code hugetlbfs} mount with the default huge page size, mapped
+ *       by {@link MappedRegion}, which draws on the same pool on any JDK and is only
+ *       tried when the pool has enough free pages</li>
+ *   <li>normal pages aligned to a huge page and advised to be backed by transparent
+ *       huge pages, mapped by the backend</li>
+ *   <li>{@link Memory#malloc_aligned(long, long)} aligned to a huge page, which
+ *       transparent huge pages only back when set to {@code always}</li>
+ * </ol>
+ *
+ * <p>Every region is held in a registry by its address, with its kind and
+ * length, until it is freed.
+ *
+ * @author  Jack Green (ja-green)
+ */
+final class HugePages {
+
+  /**
+   * The size in bytes of a huge page, read from {@code /proc/meminfo},
+   * or 2 MB where it cannot be read.
+   */
+  static final long SIZE = meminfo("Hugepagesize:", 2 * Memory.MEGABYTE / Memory.KILOBYTE) * Memory.KILOBYTE;
+
+  /*
+   * The mount point of a hugetlbfs file system with pages of SIZE bytes, or null.
+   */
+  private static final Path MOUNT = mount();
+
+  /*
+   * Kinds of region.
+   */
+  private static final int POOL     = 0;
+  private static final int FILE     = 1;
+  private static final int ADVISED  = 2;
+  private static final int FALLBACK = 3;
+
+  private static final ConcurrentHashMap<Long, Region> REGIONS = new ConcurrentHashMap<>();
+
+  /*
+   * Suppresses default constructor, ensuring non-instantiability.
+   */
+  private HugePages() {}
+
+  /*
+   * Reads the number in the line of /proc/meminfo starting with key, or
+   * returns fallback where it cannot be read.
+   */
+  private static long meminfo(String key, long fallback) {
+    try {
+      for (String line : Files.readAllLines(Paths.get("/proc/meminfo"), StandardCharsets.US_ASCII)) {
+        if (line.startsWith(key))
+          return Long.parseLong(line.replaceAll("[^0-9]", ""));
+      }
+
+    } catch (IOException | NumberFormatException | SecurityException ex) {
+      // fall through to the default
+    }
+
+    return fallback;
+  }
+
+  /*
+   * Finds a hugetlbfs mount in /proc/mounts whose page size, given by its pagesize
+   * option or the default huge page size without one, is SIZE. Spaces in the
+   * mount point are escaped as \040.
+   */
+  private static Path mount() {
+    try {
+      for (String line : Files.readAllLines(Paths.get("/proc/mounts"), StandardCharsets.UTF_8)) {
+        String[] fields = line.split(" ");
+
+        if (fields.length < 4 || !fields[2].equals("hugetlbfs")) continue;
+
+        long page = SIZE;
+
+        for (String option : fields[3].split(","))
+          if (option.startsWith("pagesize="))
+            page = bytes(option.substring(9));
+
+        Path path = Paths.get(fields[1].replace("\\040", " "));
+
+        if (page == SIZE && Files.isWritable(path)) return path;
+      }
+
+    } catch (IOException | RuntimeException ex) {
+      // no usable mount
+    }
+
+    return null;
+  }
+
+  /*
+   * Parses a size such as 2M or 1G, as written in mount options.
+   */
+  private static long bytes(String size) {
+    char unit = Character.toUpperCase(size.charAt(size.length() - 1));
+    long n    = Long.parseLong(size.replaceAll("[^0-9]", ""));
+
+    switch (unit) {
+      case 'K': return n * Memory.KILOBYTE;
+      case 'M': return n * Memory.MEGABYTE;
+      case 'G': return n * Memory.GIGABYTE;
+      default:  return n;
+    }
+  }
+
+  /*
+   * Allocates an uninitialised region of at least bytes bytes, a whole
+   * number of huge pages long and aligned to a huge page.
+   */
+  static long allocate(long bytes) {
+    long length  = (Math.max(bytes, 1) + SIZE - 1) & -SIZE;
+    long pointer = Memory.BACKEND.map_huge(length, SIZE);
+    int  kind    = POOL;
+
+    if (pointer == 0) {
+      pointer = map_file(length);
+      kind    = FILE;
+    }
+
+    if (pointer == 0) {
+      pointer = Memory.BACKEND.map_advised(length, SIZE);
+      kind    = ADVISED;
+    }
+
+    /*
+     * Mapped regions are zeroed by the kernel, but this one is not zeroed
+     * up front, as doing so would touch every page before it is used.
+     */
+    if (pointer == 0) {
+      pointer = Memory.malloc_aligned(length, SIZE);
+      kind    = FALLBACK;
+    }
+
+    REGIONS.put(pointer, new Region(kind, length));
+
+    return pointer;
+  }
+
+  /*
+   * Maps a file created on the hugetlbfs mount, if there is one and the pool
+   * has enough free pages, as a mapping which cannot be backed fails only
+   * after the JVM has run the garbage collector and retried. The file is
+   * deleted once mapped, so its pages return to the pool when it is unmapped.
+   */
+  private static long map_file(long length) {
+    if (MOUNT == null || length > MappedRegion.MAX_LENGTH) return 0;
+
+    if (meminfo("HugePages_Free:", 0) * SIZE < length) return 0;
+
+    try {
+      Path file = Files.createTempFile(MOUNT, "memoryutil", ".huge");
+
+      try {
+        return MappedRegion.map(file, 0, length, MapMode.READ_WRITE);
+
+      } finally {
+        Files.delete(file);
+      }
+
+    } catch (IOException | RuntimeException ex) {
+      return 0;
+    }
+  }
+
+  /*
+   * Tests whether the region at pointer came from the reserved pool.
+   */
+  static boolean huge(long pointer) {
+    Region region = REGIONS.get(pointer);
+
+    assert region != null : "not a huge page pointer";
+
+    return region.kind == POOL || region.kind == FILE;
+  }
+
+  static void free(long pointer) {
+    Region region = REGIONS.remove(pointer);
+
+    assert region != null : "not a huge page pointer";
+
+    switch (region.kind) {
+      case POOL:
+      case ADVISED: Memory.BACKEND.unmap(pointer, region.length); break;
+      case FILE:    MappedRegion.get(pointer).unmap();            break;
+      default:      Memory.free_aligned(pointer);                 break;
+    }
+  }
+
+  private static final class Region {
+    final int  kind;
+    final long length;
+
+    Region(int kind, long length) {
+      this.kind   = kind;
+      this.length = length;
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A set of objects compared by identity, used to mark the objects already
+ * visited while walking an object graph.
+ *
+ * <p>Objects are held in a single table using open addressing with linear
+ * probing, hashed by {@link System#identityHashCode(Object)}. Unlike
+ * {@link java.util.IdentityHashMap} there are no values, so each entry costs
+ * a single reference. Objects can be removed, by shifting back the entries
+ * probed past them, but not from a set read without a lock, see
+ * {@link ConcurrentIdentitySet}.
+ *
+ * <p>Sets are not thread safe.
+ *
+ * @author  Jack Green (ja-green)
+ */
+final class IdentitySet {
+  private Object[] table;
+  private int      size;
+  private int      threshold;
+
+  IdentitySet(int expected) {
+    int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+
+    this.table     = new Object[capacity];
+    this.threshold = capacity >>> 1;
+  }
+
+  /*
+   * Spreads the identity hash, which may have few random low bits.
+   */
+  static int hash(Object o) {
+    int h = System.identityHashCode(o) * 0x9E3779B9;
+
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Adds {@code o} to this set.
+   *
+   * @param   o the object to add, not null
+   * @return  {@code true} if {@code o} was not already in this set
+   */
+  boolean add(Object o) {
+    return add(o, hash(o));
+  }
+
+  boolean add(Object o, int hash) {
+    Object[] table = this.table;
+    int      mask  = table.length - 1;
+    int      i     = hash & mask;
+
+    for (Object e; (e = table[i]) != null; i = (i + 1) & mask)
+      if (e == o) return false;
+
+    table[i] = o;
+
+    if (++size > threshold)
+      grow();
+
+    return true;
+  }
+
+  /**
+   * Removes {@code o} from this set.
+   *
+   * @param   o the object to remove, not null
+   * @return  {@code true} if {@code o} was in this set
+   */
+  boolean remove(Object o) {
+    Object[] table = this.table;
+    int      mask  = table.length - 1;
+    int      i     = hash(o) & mask;
+
+    for (Object e; (e = table[i]) != o; i = (i + 1) & mask)
+      if (e == null) return false;
+
+    /*
+     * Moves each later entry of the run into the gap, unless its home
+     * slot lies cyclically after the gap, where it would not be found.
+     */
+    for (int j = (i + 1) & mask; table[j] != null; j = (j + 1) & mask) {
+      int home = hash(table[j]) & mask;
+
+      if ((j > i) ? (home <= i || home > j) : (home <= i && home > j)) {
+        table[i] = table[j];
+        i        = j;
+      }
+    }
+
+    table[i] = null;
+    size--;
+
+    return true;
+  }
+
+  /*
+   * Tests whether o is in this set. Objects are never removed from a
+   * concurrent set, so this may be called without holding the lock guarding
+   * add, in which case a result of false may be stale but a result of true
+   * is always correct. Each new table is filled before it is published for
+   * the same reason.
+   */
+  boolean contains(Object o, int hash) {
+    Object[] table = this.table;
+    int      mask  = table.length - 1;
+
+    for (int i = hash & mask; ; i = (i + 1) & mask) {
+      Object e = table[i];
+
+      if (e == o)    return true;
+      if (e == null) return false;
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void grow() {
+    Object[] old   = this.table;
+    Object[] table = new Object[old.length << 1];
+    int      mask  = table.length - 1;
+
+    for (Object o : old) {
+      if (o == null) continue;
+
+      int i = hash(o) & mask;
+
+      while (table[i] != null)
+        i = (i + 1) & mask;
+
+      table[i] = o;
+    }
+
+    this.table     = table;
+    this.threshold = table.length >>> 1;
+  }
+}
@@ -0,0 +1,477 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.PlatformManagedObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes how the instance fields of a class are laid out, both on the heap
+ * and when copied to off-heap memory by {@link Memory}.
+ *
+ * <p>A layout is computed once per class and cached using a {@link ClassValue}
+ * so that reflection is only ever performed the first time a class is used.
+ * Fields appear in declaration order, followed by the fields of each superclass
+ * in turn, static fields are excluded.
+ *
+ * <p>Fields are placed where the JVM places them, as given by
+ * {@code Unsafe.objectFieldOffset}, so an off-heap copy has the same layout
+ * and size as the object on the heap, including the gaps left by the JVM's
+ * field packing. The size of the object header, the width of a reference and
+ * the object alignment are detected when this class is loaded, so compressed
+ * class pointers, compressed oops, compact object headers and
+ * {@code -XX:ObjectAlignmentInBytes} are all accounted for.
+ *
+ * <p>{@code Unsafe} will not give the offsets of the fields of records and hidden
+ * classes, so for those classes the offsets are computed the way HotSpot lays
+ * out fields. Such a layout has the right size, and its fields are read through
+ * reflection, but it cannot be used to copy instances off-heap.
+ *
+ * @author  Jack Green (ja-green)
+ */
+final class Layout {
+
+  /*
+   * Field kinds. Primitive kinds are ordered so that KIND < A_LONG
+   * identifies a primitive and KIND < OBJECT a primitive array.
+   */
+  static final int LONG      = 0;
+  static final int DOUBLE    = 1;
+  static final int INT       = 2;
+  static final int FLOAT     = 3;
+  static final int CHAR      = 4;
+  static final int SHORT     = 5;
+  static final int BYTE      = 6;
+  static final int BOOLEAN   = 7;
+
+  static final int A_LONG    = 8;
+  static final int A_DOUBLE  = 9;
+  static final int A_INT     = 10;
+  static final int A_FLOAT   = 11;
+  static final int A_CHAR    = 12;
+  static final int A_SHORT   = 13;
+  static final int A_BYTE    = 14;
+  static final int A_BOOLEAN = 15;
+
+  static final int OBJECT    = 16;
+
+  /*
+   * Width in bytes of each primitive kind, references and arrays
+   * occupy REFERENCE bytes.
+   */
+  private static final long[] WIDTHS = { 8, 8, 4, 4, 2, 2, 1, 1 };
+
+  /*
+   * The size of the header of an instance, found from where the JVM places
+   * the only field of a class. It is 12 bytes on a 64 bit JVM with compressed
+   * class pointers, 16 bytes without and 8 bytes with compact object headers.
+   */
+  static final long HEADER = header();
+
+  /*
+   * The width of a reference on the heap, 4 bytes with compressed oops.
+   */
+  static final long REFERENCE = (Memory.UNSAFE != null) ? Memory.UNSAFE.arrayIndexScale(Object[].class) : 0;
+
+  /*
+   * The alignment of every object on the heap, set by
+   * -XX:ObjectAlignmentInBytes and 8 bytes by default.
+   */
+  static final long ALIGNMENT = alignment();
+
+  private static final ClassValue<Layout> LAYOUTS = new ClassValue<Layout>() {
+    @Override protected Layout computeValue(Class<?> clazz) { return new Layout(clazz); }
+  };
+
+  final Class<?>   clazz;
+  final Field[]    fields;
+  final Class<?>[] types;
+  final int[]      kinds;
+
+  /*
+   * Offsets of each field within an instance on the heap,
+   * as given by Unsafe.objectFieldOffset where available.
+   */
+  final long[]     offsets;
+
+  /*
+   * Offsets of each field from the start of an off-heap copy,
+   * the same as their offsets on the heap.
+   */
+  final long[]     positions;
+
+  /*
+   * Size of an instance on the heap rounded to the object alignment, which
+   * is the size of an off-heap copy when the layout is fixed, i.e. holds no
+   * arrays or references. The contents of arrays and referenced objects are
+   * stored after it.
+   */
+  final long       size;
+
+  final boolean    fixed;
+
+  /*
+   * Whether the offsets are those the JVM uses. Unsafe does not give the
+   * offsets of the fields of records and hidden classes, such as the classes
+   * of capturing lambdas, so they are computed instead, and the fields can
+   * only be read through reflection.
+   */
+  final boolean    exact;
+
+  private final Map<String, Integer> indices;
+
+  private Layout(Class<?> clazz) {
+    List<Field>    list      = new ArrayList<>();
+    List<Class<?>> hierarchy = new ArrayList<>();
+    List<Integer>  bounds    = new ArrayList<>();
+
+    for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+      hierarchy.add(c);
+      bounds.add(list.size());
+
+      for (Field f : c.getDeclaredFields())
+        if ((f.getModifiers() & Modifier.STATIC) == 0)
+          list.add(f);
+    }
+
+    int n = list.size();
+
+    bounds.add(n);
+
+    this.clazz     = clazz;
+    this.fields    = list.toArray(new Field[n]);
+    this.types     = new Class<?>[n];
+    this.kinds     = new int[n];
+    this.offsets   = new long[n];
+    this.positions = new long[n];
+    this.indices   = new HashMap<>(n * 2);
+
+    for (int i = 0; i < n; i++) {
+      types[i] = fields[i].getType();
+      kinds[i] = kind(types[i]);
+    }
+
+    /*
+     * Offsets are found from the top of the hierarchy down, as the fields of a
+     * class whose offsets are unavailable are placed around those of its
+     * superclasses, which follow its own fields in the list.
+     */
+    boolean exact = true;
+
+    for (int h = hierarchy.size() - 1; h >= 0; h--) {
+      int from = bounds.get(h);
+      int to   = bounds.get(h + 1);
+
+      try {
+        for (int i = from; i < to; i++)
+          offsets[i] = Memory.unsafe().objectFieldOffset(fields[i]);
+
+      } catch (UnsupportedOperationException ex) {
+        exact = false;
+        place(from, to);
+      }
+    }
+
+    long    end   = HEADER;
+    boolean fixed = true;
+
+    for (int i = 0; i < n; i++) {
+      positions[i] = offsets[i];
+
+      end    = Math.max(end, offsets[i] + width(kinds[i]));
+      fixed &= kinds[i] < A_LONG;
+
+      if (!exact && kinds[i] >= A_LONG)
+        accessible(fields[i]);
+
+      /*
+       * A field hides any field of the same name in a superclass.
+       */
+      if (!indices.containsKey(fields[i].getName()))
+        indices.put(fields[i].getName(), i);
+    }
+
+    this.fixed = fixed;
+    this.exact = exact;
+    this.size  = align(end);
+  }
+
+  /*
+   * Places the fields from index from to to, those of a record or hidden class
+   * whose offsets Unsafe will not give, as HotSpot does from JDK 15 on, when both
+   * were introduced. Primitives are placed widest first and then references, each
+   * in the smallest gap it fits left by the header, the fields of superclasses and
+   * the fields already placed, or else after the last field. The size found is
+   * exact, though fields of the same width may be placed in a different order.
+   */
+  private void place(int from, int to) {
+    List<long[]> used = new ArrayList<>();
+    List<long[]> gaps = new ArrayList<>();
+
+    used.add(new long[] { 0, HEADER });
+
+    for (int i = to; i < fields.length; i++)
+      used.add(new long[] { offsets[i], offsets[i] + width(kinds[i]) });
+
+    used.sort((a, b) -> Long.compare(a[0], b[0]));
+
+    long end = 0;
+
+    for (long[] block : used) {
+      if (block[0] > end) gaps.add(new long[] { end, block[0] });
+      end = Math.max(end, block[1]);
+    }
+
+    List<Integer> order = new ArrayList<>();
+
+    for (int i = from; i < to; i++)
+      order.add(i);
+
+    order.sort((a, b) -> (kinds[a] < A_LONG) != (kinds[b] < A_LONG)
+      ? (kinds[a] < A_LONG ? -1 : 1)
+      : Long.compare(width(kinds[b]), width(kinds[a])));
+
+    for (int i : order) {
+      long   bytes = width(kinds[i]);
+      long[] best  = null;
+
+      for (long[] gap : gaps) {
+        long at = (gap[0] + bytes - 1) & -bytes;
+
+        if (at + bytes <= gap[1] && (best == null || gap[1] - gap[0] <= best[1] - best[0]))
+          best = gap;
+      }
+
+      if (best == null) {
+        long at = (end + bytes - 1) & -bytes;
+
+        if (at > end) gaps.add(new long[] { end, at });
+
+        offsets[i] = at;
+        end        = at + bytes;
+        continue;
+      }
+
+      long at    = (best[0] + bytes - 1) & -bytes;
+      int  index = gaps.indexOf(best);
+
+      gaps.remove(index);
+
+      if (at + bytes < best[1]) gaps.add(index, new long[] { at + bytes, best[1] });
+      if (best[0] < at)         gaps.add(index, new long[] { best[0], at });
+
+      offsets[i] = at;
+    }
+  }
+
+  /*
+   * Makes a field readable through reflection, which fails when its class is
+   * in a named module not opened to this one, leaving the field unreadable.
+   */
+  private static void accessible(Field field) {
+    try {
+      field.setAccessible(true);
+
+    } catch (RuntimeException ex) {
+      // read as null
+    }
+  }
+
+  /**
+   * Gets the value of the field {@code i} of {@code o}, a reference or array.
+   *
+   * <p>When the layout is not exact the field is read through reflection,
+   * and a field which cannot be read gives {@code null}.
+   *
+   * @param   o the object to read the field of
+   * @param   i the index of the field
+   * @return  the value of the field
+   */
+  Object reference(Object o, int i) {
+    if (exact) return Memory.unsafe().getObject(o, offsets[i]);
+
+    try {
+      return fields[i].get(o);
+
+    } catch (IllegalAccessException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Gets the layout of the class {@code clazz}, for copying instances of it
+   * to and from off-heap memory, which needs the real offsets of its fields.
+   *
+   * @param   clazz the class to get the layout of
+   * @return  the layout of the class
+   * @throws  IllegalArgumentException if the offsets of the fields of the
+   *          class are unavailable, as for records and hidden classes
+   */
+  static Layout exact(Class<?> clazz) {
+    Layout layout = of(clazz);
+
+    if (!layout.exact)
+      throw new IllegalArgumentException(clazz.getName() + " is a record or hidden class, whose field offsets are unavailable");
+
+    return layout;
+  }
+
+  /*
+   * A class with a single field, which the JVM places directly after the header.
+   */
+  private static final class Probe {
+    byte field;
+  }
+
+  private static long header() {
+    if (Memory.UNSAFE == null) return 0;
+
+    try {
+      return Memory.UNSAFE.objectFieldOffset(Probe.class.getDeclaredField("field"));
+
+    } catch (NoSuchFieldException ex) {
+      throw new ExceptionInInitializerError(ex);
+    }
+  }
+
+  /*
+   * Reads ObjectAlignmentInBytes through the HotSpot diagnostic bean, which is
+   * looked up reflectively as it is specific to HotSpot and lives outside the
+   * java.management module. Other JVMs, or a module graph without
+   * jdk.management, fall back to 8.
+   */
+  private static long alignment() {
+    try {
+      Class<? extends PlatformManagedObject> type = Class.forName("com.sun.management.HotSpotDiagnosticMXBean")
+        .asSubclass(PlatformManagedObject.class);
+
+      Object bean   = ManagementFactory.getPlatformMXBean(type);
+      Object option = type.getMethod("getVMOption", String.class).invoke(bean, "ObjectAlignmentInBytes");
+
+      return Long.parseLong((String) option.getClass().getMethod("getValue").invoke(option));
+
+    } catch (Exception | LinkageError ex) {
+      return 8;
+    }
+  }
+
+  /**
+   * Rounds {@code bytes} up to the next multiple of the object alignment.
+   *
+   * @param   bytes the number of bytes
+   * @return  the number of bytes rounded up to the object alignment
+   */
+  static long align(long bytes) {
+    return (bytes + ALIGNMENT - 1) & -ALIGNMENT;
+  }
+
+  /**
+   * Gets the cached layout of the class {@code clazz}.
+   *
+   * @param   clazz the class to get the layout of
+   * @return  the layout of the class
+   */
+  static Layout of(Class<?> clazz) {
+    Memory.unsafe();
+
+    return LAYOUTS.get(clazz);
+  }
+
+  /**
+   * Gets the index of the field named {@code name}.
+   *
+   * @param   name the name of the field
+   * @return  the index of the field, or -1 if there is no such instance field
+   */
+  int index(String name) {
+    Integer i = indices.get(name);
+
+    return (i == null) ? -1 : i;
+  }
+
+  /**
+   * Gets the kind of a type, one of the primitive kinds, a primitive array
+   * kind or {@link #OBJECT}.
+   *
+   * @param   type the type to classify
+   * @return  the kind of the type
+   */
+  static int kind(Class<?> type) {
+    if (type.isPrimitive()) {
+      if (type == long.class)      return LONG;
+      if (type == double.class)    return DOUBLE;
+      if (type == int.class)       return INT;
+      if (type == float.class)     return FLOAT;
+      if (type == char.class)      return CHAR;
+      if (type == short.class)     return SHORT;
+      if (type == byte.class)      return BYTE;
+      if (type == boolean.class)   return BOOLEAN;
+
+    } else if (type.isArray()) {
+      if (type == long[].class)    return A_LONG;
+      if (type == double[].class)  return A_DOUBLE;
+      if (type == int[].class)     return A_INT;
+      if (type == float[].class)   return A_FLOAT;
+      if (type == char[].class)    return A_CHAR;
+      if (type == short[].class)   return A_SHORT;
+      if (type == byte[].class)    return A_BYTE;
+      if (type == boolean[].class) return A_BOOLEAN;
+    }
+
+    return OBJECT;
+  }
+
+  /**
+   * Gets the width in bytes of a kind when stored inline, which for
+   * references and arrays is {@link #REFERENCE}.
+   *
+   * @param   kind the kind
+   * @return  the width in bytes
+   */
+  static long width(int kind) {
+    return (kind < A_LONG) ? WIDTHS[kind] : REFERENCE;
+  }
+
+  /**
+   * Gets the number of bytes needed to hold the elements of
+   * {@code array}, a primitive array of the given kind.
+   *
+   * @param   kind  the primitive array kind
+   * @param   array the array
+   * @return  the size in bytes of the elements of the array
+   */
+  static long array_size(int kind, Object array) {
+    switch (kind) {
+      case A_LONG:    return 8L * ((long[])    array).length;
+      case A_DOUBLE:  return 8L * ((double[])  array).length;
+      case A_INT:     return 4L * ((int[])     array).length;
+      case A_FLOAT:   return 4L * ((float[])   array).length;
+      case A_CHAR:    return 2L * ((char[])    array).length;
+      case A_SHORT:   return 2L * ((short[])   array).length;
+      case A_BYTE:    return 1L * ((byte[])    array).length;
+      case A_BOOLEAN: return 1L * ((boolean[]) array).length;
+
+      default:        throw new IllegalArgumentException();
+    }
+  }
+}
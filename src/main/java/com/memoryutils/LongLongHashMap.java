@@ -0,0 +1,398 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A hash map from {@code long} keys to {@code long} values stored entirely in
+ * off-heap memory, allocated using {@link Memory#calloc(long)}.
+ *
+ * <p>Entries are stored in a single table of 16 byte slots, key then value, using
+ * open addressing with linear probing, so the map holds no objects per entry and
+ * is invisible to the garbage collector. Removal shifts later entries of the probe
+ * sequence back rather than leaving tombstones. A key of 0 marks an empty slot,
+ * so the mapping for the key 0 is held separately.
+ *
+ * <p>Growing the table is incremental. When the load factor is exceeded a table of
+ * twice the size is allocated, and each following put or remove moves a few entries
+ * across from the old table, so no single operation has to rehash the whole map.
+ * Entries are moved a cluster at a time, a run of occupied slots ending in an empty
+ * one, which keeps the probe sequences of the old table intact while it drains.
+ *
+ * <p>The map must be released using {@link #close()}. Maps are not thread safe.
+ *
+ * @author  Jack Green (ja-green)
+ */
+public final class LongLongHashMap implements AutoCloseable {
+  private static final long SLOT     = 16;
+  private static final int  MIGRATE  = 16;
+
+  private final double load_factor;
+  private final long   missing;
+
+  private long   table;
+  private long   mask;
+  private long   threshold;
+  private long   size;
+
+  /*
+   * The table being drained while growing, 0 when not growing. Slots of the old
+   * table are moved in order starting from just after an empty slot, old_start,
+   * until old_moved slots have been visited.
+   */
+  private long   old_table;
+  private long   old_mask;
+  private long   old_start;
+  private long   old_moved;
+
+  private boolean has_zero;
+  private long    zero_value;
+
+  /**
+   * Creates a map with room for 16 entries before growing,
+   * a load factor of 0.75 and 0 as the missing value.
+   */
+  public LongLongHashMap() {
+    this(16, 0.75, 0);
+  }
+
+  /**
+   * Creates a map with room for {@code capacity} entries before growing.
+   *
+   * @param   capacity    the number of entries to allocate room for
+   * @param   load_factor the fraction of slots which may be occupied before growing
+   * @param   missing     the value returned by {@link #get(long)} for missing keys
+   */
+  public LongLongHashMap(long capacity, double load_factor, long missing) {
+    assert capacity >= 0 && load_factor > 0 && load_factor < 1;
+
+    this.load_factor = load_factor;
+    this.missing     = missing;
+
+    long slots = Long.highestOneBit(Math.max(2, (long) (capacity / load_factor)) - 1) << 1;
+
+    this.table     = Memory.calloc(slots * SLOT);
+    this.mask      = slots - 1;
+    this.threshold = (long) (slots * load_factor);
+  }
+
+  /**
+   * Gets the value mapped to by {@code key}.
+   *
+   * @param   key the key
+   * @return  the value, or the missing value if there is no mapping for the key
+   */
+  public long get(long key) {
+    if (key == 0) return has_zero ? zero_value : missing;
+
+    long slot = find(table, mask, key);
+    if (slot != 0) return Memory.memget_l(slot + 8);
+
+    if (old_table != 0) {
+      slot = find(old_table, old_mask, key);
+      if (slot != 0) return Memory.memget_l(slot + 8);
+    }
+
+    return missing;
+  }
+
+  /**
+   * Tests whether there is a mapping for {@code key}.
+   *
+   * @param   key the key
+   * @return  {@code true} if the key is mapped to a value
+   */
+  public boolean contains(long key) {
+    if (key == 0) return has_zero;
+
+    return find(table, mask, key) != 0
+      || (old_table != 0 && find(old_table, old_mask, key) != 0);
+  }
+
+  /**
+   * Maps {@code key} to {@code value}, replacing any existing mapping.
+   *
+   * @param   key   the key
+   * @param   value the value
+   * @return  the previous value, or the missing value if there was no mapping
+   */
+  public long put(long key, long value) {
+    if (key == 0) {
+      long previous = has_zero ? zero_value : missing;
+
+      if (!has_zero) size++;
+
+      has_zero   = true;
+      zero_value = value;
+
+      return previous;
+    }
+
+    if (old_table != 0) {
+      migrate(MIGRATE);
+
+      long slot = (old_table != 0) ? find(old_table, old_mask, key) : 0;
+
+      if (slot != 0) {
+        long previous = Memory.memget_l(slot + 8);
+        Memory.memput(slot + 8, value);
+
+        return previous;
+      }
+    }
+
+    long slot = probe(table, mask, key);
+
+    if (Memory.memget_l(slot) == key) {
+      long previous = Memory.memget_l(slot + 8);
+      Memory.memput(slot + 8, value);
+
+      return previous;
+    }
+
+    Memory.memput(slot,     key);
+    Memory.memput(slot + 8, value);
+
+    if (++size > threshold && old_table == 0) grow();
+
+    return missing;
+  }
+
+  /**
+   * Removes the mapping for {@code key}.
+   *
+   * @param   key the key
+   * @return  the removed value, or the missing value if there was no mapping
+   */
+  public long remove(long key) {
+    if (key == 0) {
+      if (!has_zero) return missing;
+
+      has_zero = false;
+      size--;
+
+      return zero_value;
+    }
+
+    if (old_table != 0) {
+      migrate(MIGRATE);
+
+      /*
+       * Removing from the old table would shift entries back over slots
+       * which may already have been visited, so the whole cluster holding
+       * the key is moved to the new table first.
+       */
+      long slot = (old_table != 0) ? find(old_table, old_mask, key) : 0;
+
+      if (slot != 0) migrate_cluster(slot);
+    }
+
+    long slot = find(table, mask, key);
+
+    if (slot == 0) return missing;
+
+    long previous = Memory.memget_l(slot + 8);
+
+    delete(slot);
+    size--;
+
+    return previous;
+  }
+
+  /**
+   * Gets the number of mappings in this map.
+   *
+   * @return  the number of mappings
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Gets the number of bytes of off-heap memory used by this map.
+   *
+   * @return  the size in bytes of the tables held
+   */
+  public long memory() {
+    return (mask + 1) * SLOT + ((old_table != 0) ? (old_mask + 1) * SLOT : 0);
+  }
+
+  /**
+   * Removes every mapping, keeping the current table.
+   */
+  public void clear() {
+    if (old_table != 0) {
+      Memory.free(old_table);
+      old_table = 0;
+    }
+
+    Memory.memset(table, (byte) 0, (mask + 1) * SLOT);
+
+    has_zero = false;
+    size     = 0;
+  }
+
+  /**
+   * Frees the off-heap memory held by this map. The map
+   * must not be used after calling this method.
+   */
+  @Override
+  public void close() {
+    Memory.free(old_table);
+    Memory.free(table);
+
+    old_table = 0;
+    table     = 0;
+  }
+
+  /*
+   * Mixes the bits of the key so that keys differing only in their
+   * high bits still fall into different slots.
+   */
+  private static long hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return h ^ (h >>> 32);
+  }
+
+  /*
+   * Gets the slot holding key, or 0 if there is none.
+   */
+  private static long find(long table, long mask, long key) {
+    for (long i = hash(key) & mask;; i = (i + 1) & mask) {
+      long slot = table + i * SLOT;
+      long k    = Memory.memget_l(slot);
+
+      if (k == key) return slot;
+      if (k == 0)   return 0;
+    }
+  }
+
+  /*
+   * Gets the slot holding key, or the empty slot it should be put in.
+   */
+  private static long probe(long table, long mask, long key) {
+    for (long i = hash(key) & mask;; i = (i + 1) & mask) {
+      long slot = table + i * SLOT;
+      long k    = Memory.memget_l(slot);
+
+      if (k == key || k == 0) return slot;
+    }
+  }
+
+  /*
+   * Empties slot, shifting back any later entry of the cluster
+   * whose probe sequence passes through it.
+   */
+  private void delete(long slot) {
+    long hole = (slot - table) / SLOT;
+
+    for (long i = (hole + 1) & mask;; i = (i + 1) & mask) {
+      long k = Memory.memget_l(table + i * SLOT);
+
+      if (k == 0) break;
+
+      long home = hash(k) & mask;
+
+      /*
+       * The entry at i may move to the hole unless its home
+       * slot lies cyclically within (hole, i].
+       */
+      if (((i - home) & mask) >= ((i - hole) & mask)) {
+        move(table + hole * SLOT, table + i * SLOT);
+        hole = i;
+      }
+    }
+
+    Memory.memput(table + hole * SLOT,     0L);
+    Memory.memput(table + hole * SLOT + 8, 0L);
+  }
+
+  private static void move(long dest, long src) {
+    Memory.memput(dest,     Memory.memget_l(src));
+    Memory.memput(dest + 8, Memory.memget_l(src + 8));
+  }
+
+  private void grow() {
+    long slots = (mask + 1) << 1;
+
+    old_table = table;
+    old_mask  = mask;
+    old_moved = 0;
+
+    table     = Memory.calloc(slots * SLOT);
+    mask      = slots - 1;
+    threshold = (long) (slots * load_factor);
+
+    /*
+     * Start just after an empty slot so that clusters are
+     * never split between the visited and unvisited slots.
+     */
+    long i = 0;
+    while (Memory.memget_l(old_table + i * SLOT) != 0) i++;
+
+    old_start = (i + 1) & old_mask;
+
+    migrate(MIGRATE);
+  }
+
+  /*
+   * Visits at least count slots of the old table, stopping after an empty
+   * slot, moving every entry found to the new table.
+   */
+  private void migrate(int count) {
+    long slots = old_mask + 1;
+    int  n     = 0;
+
+    while (old_moved < slots) {
+      long slot = old_table + ((old_start + old_moved++) & old_mask) * SLOT;
+      long k    = Memory.memget_l(slot);
+
+      if (k != 0) {
+        move(probe(table, mask, k), slot);
+        Memory.memput(slot, 0L);
+
+      } else if (++n >= count) {
+        break;
+      }
+    }
+
+    if (old_moved == slots) {
+      Memory.free(old_table);
+      old_table = 0;
+    }
+  }
+
+  /*
+   * Moves the whole cluster of the old table holding slot
+   * to the new table, leaving its slots empty.
+   */
+  private void migrate_cluster(long slot) {
+    long i = (slot - old_table) / SLOT;
+
+    while (Memory.memget_l(old_table + ((i - 1) & old_mask) * SLOT) != 0)
+      i = (i - 1) & old_mask;
+
+    for (;; i = (i + 1) & old_mask) {
+      long s = old_table + i * SLOT;
+      long k = Memory.memget_l(s);
+
+      if (k == 0) break;
+
+      move(probe(table, mask, k), s);
+      Memory.memput(s, 0L);
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A region of a file mapped into memory by {@link Memory#mmap(Path, long, long, MapMode)}.
+ *
+ * <p>Files are mapped using {@link FileChannel#map(MapMode, long, long)}, and the address
+ * of the {@link MappedByteBuffer} returned is read from its {@code address} field. Every
+ * region is held in a registry by its address until it is unmapped, which keeps the buffer
+ * reachable, as the JVM unmaps a buffer's memory when the buffer is collected.
+ *
+ * <p>Unmapping calls the buffer's cleaner directly, through
+ * {@code sun.misc.Unsafe.invokeCleaner} on JDK 9 and above or
+ * {@code sun.misc.Cleaner} on JDK 8.
+ *
+ * <p>As a {@link MappedByteBuffer} is indexed by {@code int}, regions are limited to
+ * {@link #MAX_LENGTH} bytes. On JDK 22 and above this class is replaced by one which
+ * maps files into a {@code MemorySegment}, which has no such limit.
+ *
+ * @author  Jack Green (ja-green)
+ */
+final class MappedRegion {
+  private static final long   ADDRESS;
+  private static final Method INVOKE_CLEANER;
+
+  private static final ConcurrentHashMap<Long, MappedRegion> REGIONS = new ConcurrentHashMap<>();
+
+  /*
+   * The largest region which can be mapped, as a MappedByteBuffer is indexed by int.
+   */
+  static final long MAX_LENGTH = Integer.MAX_VALUE;
+
+  static {
+    long   address        = 0;
+    Method invoke_cleaner = null;
+
+    if (Memory.UNSAFE != null) {
+      try {
+        address = Memory.UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+
+      } catch (NoSuchFieldException ex) {
+        throw new ExceptionInInitializerError(ex);
+      }
+
+      try {
+        invoke_cleaner = Memory.UNSAFE.getClass().getMethod("invokeCleaner", ByteBuffer.class);
+
+      } catch (NoSuchMethodException ex) {
+        invoke_cleaner = null;
+      }
+    }
+
+    ADDRESS        = address;
+    INVOKE_CLEANER = invoke_cleaner;
+  }
+
+  final Path             path;
+  final long             offset;
+  final long             length;
+  final MapMode          mode;
+  final MappedByteBuffer buffer;
+  final long             pointer;
+
+  private MappedRegion(Path path, long offset, long length, MapMode mode) throws IOException {
+    assert offset >= 0 && length > 0;
+
+    if (length > MAX_LENGTH)
+      throw new IllegalArgumentException("cannot map " + length + " bytes, the limit is " + MAX_LENGTH + " before JDK 22");
+
+    OpenOption[] options = (mode == MapMode.READ_ONLY)
+      ? new OpenOption[] { StandardOpenOption.READ }
+      : new OpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE };
+
+    /*
+     * The mapping remains valid after the channel is closed.
+     */
+    try (FileChannel channel = FileChannel.open(path, options)) {
+      this.buffer = channel.map(mode, offset, length);
+    }
+
+    this.path    = path;
+    this.offset  = offset;
+    this.length  = length;
+    this.mode    = mode;
+    this.pointer = Memory.unsafe().getLong(buffer, ADDRESS);
+  }
+
+  /*
+   * Maps a region of a file and registers it.
+   */
+  static long map(Path path, long offset, long length, MapMode mode) throws IOException {
+    Memory.unsafe();
+
+    MappedRegion region = new MappedRegion(path, offset, length, mode);
+
+    REGIONS.put(region.pointer, region);
+
+    return region.pointer;
+  }
+
+  /*
+   * Gets the region mapped at pointer.
+   */
+  static MappedRegion get(long pointer) {
+    MappedRegion region = REGIONS.get(pointer);
+
+    assert region != null : "not a mapped pointer";
+
+    return region;
+  }
+
+  void force() {
+    buffer.force();
+  }
+
+  /*
+   * Maps the same region of the file with a new length, then unmaps this region.
+   * Writes to a private mapping never reach the file, so they are copied across.
+   */
+  long remap(long length) throws IOException {
+    long pointer = map(path, offset, length, mode);
+
+    if (mode == MapMode.PRIVATE)
+      Memory.memcpy(pointer, this.pointer, Math.min(length, this.length));
+
+    unmap();
+
+    return pointer;
+  }
+
+  void unmap() {
+    REGIONS.remove(pointer);
+
+    try {
+      if (INVOKE_CLEANER != null) {
+        INVOKE_CLEANER.invoke(Memory.unsafe(), buffer);
+
+      } else {
+        Method cleaner = buffer.getClass().getMethod("cleaner");
+        cleaner.setAccessible(true);
+
+        Object c = cleaner.invoke(buffer);
+        c.getClass().getMethod("clean").invoke(c);
+      }
+
+    } catch (ReflectiveOperationException ex) {
+      throw new IllegalStateException("unable to unmap " + path, ex);
+    }
+  }
+}
@@ -0,0 +1,2265 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import sun.misc.Unsafe;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class consists of helper methods for using {@code sun.misc.Unsafe} to
+ * access and manipulate off-heap memory.
+ *
+ * <p>Methods in this class have been designed with performance in mind and therefore all
+ * checks use only the assert keyword. With assertions enabled, illegal memory access
+ * will throw an {@code AssertionError}. Without assertions illegal memory access
+ * will potentially crash the JVM. Assertions can be enabled in runtime using the
+ * {@code -ea} switch in the JVM arguments.
+ *
+ * <p>They have been designed to emulate C's {@code stdlib.h} library functions:
+ * <ul>
+ *   <li>malloc   </li>
+ *   <li>calloc   </li>
+ *   <li>realloc  </li>
+ *   <li>free     </li>
+ * </ul>
+ *
+ * C's {@code sys/mman.h} library functions:
+ * <ul>
+ *   <li>mmap     </li>
+ *   <li>msync    </li>
+ *   <li>mremap   </li>
+ *   <li>munmap   </li>
+ * </ul>
+ *
+ * and C's {@code string.h} library functions:
+ * <ul>
+ *   <li>memchr   </li>
+ *   <li>memrchr  </li>
+ *   <li>memcpy   </li>
+ *   <li>memmove  </li>
+ *   <li>memcmp   </li>
+ *   <li>memset   </li>
+ *   <li>strlen   </li>
+ * </ul>
+ *
+ * <p>Memory shared between threads can be accessed atomically and with ordering
+ * guarantees, in the manner of C's {@code stdatomic.h}, using {@code cas},
+ * {@code get_and_add}, {@code get_and_set}, the {@code get_volatile},
+ * {@code get_acquire}, {@code put_volatile}, {@code put_ordered} and
+ * {@code put_release} methods, and the fences.
+ *
+ * <p>Pointers provided by this class support pointer arithmetic
+ * and can be "dereferenced" using methods in this class.
+ *
+ * <p>Memory is allocated and accessed through a pointer using {@code sun.misc.Unsafe},
+ * or on JDK 22 and above the Foreign Function and Memory API, whose memory access
+ * methods will outlive those of {@code Unsafe}. The backend is chosen automatically
+ * and can be forced with {@code -Dcom.memoryutils.backend=unsafe} or {@code foreign}.
+ * The methods operating on objects and arrays, and the atomic methods, always use
+ * {@code Unsafe}, and throw an {@code UnsupportedOperationException} if it is
+ * unavailable.
+ *
+ * <p><b>This class uses {@code sun.misc.Unsafe}. It is very possible to crash the JVM
+ * with improper use so use at your own risk.
+ *
+ * @author  Jack Green (ja-green)
+ * @version 1.0        (15/12/17)
+ */
+public final class Memory {
+  static final Unsafe           UNSAFE;
+  static final Backend          BACKEND;
+  private static final boolean  LITTLE_ENDIAN;
+
+  /*
+   * Constants for finding bytes a word at a time.
+   */
+  private static final long     LSB  = 0x0101010101010101L;
+  private static final long     MSB  = 0x8080808080808080L;
+  private static final long     LOW7 = 0x7F7F7F7F7F7F7F7FL;
+
+  /*
+   * SIMD implementations of bulk operations, null if unavailable, and
+   * the length below which the scalar code is used regardless.
+   */
+  private static final VectorOps VECTOR     = VectorOps.load();
+  private static final int       VECTOR_MIN = 64;
+
+  /*
+   * Array base offsets for copying between arrays and off-heap memory,
+   * and the largest amount copied by a single call to Unsafe.copyMemory.
+   */
+  private static final long     ARRAY_LONG_BASE;
+  private static final long     ARRAY_DOUBLE_BASE;
+  private static final long     ARRAY_INT_BASE;
+  private static final long     ARRAY_FLOAT_BASE;
+  private static final long     ARRAY_SHORT_BASE;
+  private static final long     ARRAY_CHAR_BASE;
+  private static final long     ARRAY_BYTE_BASE;
+  private static final long     ARRAY_BOOLEAN_BASE;
+  private static final long     COPY_CHUNK = 1024 * 1024;
+
+  /*
+   * Constants so that the tracking and metrics calls are compiled away when
+   * disabled. With metrics enabled every block is preceded by a header.
+   */
+  private static final boolean  TRACK   = MemoryTracker.ENABLED;
+  private static final boolean  METRICS = MemoryMetrics.ENABLED;
+  private static final long     HEADER  = METRICS ? MemoryMetrics.HEADER : 0;
+
+  /*
+   * Size of the header before every block allocated by malloc_aligned.
+   */
+  private static final long     ALIGNED_HEADER = 24;
+
+  /*
+   * Public variables for easy allocation of different byte amounts
+   * for use with malloc, calloc and realloc.
+   */
+  public static final long      BYTE;
+  public static final long      KILOBYTE;
+  public static final long      MEGABYTE;
+  public static final long      GIGABYTE;
+
+  /**
+   * The size in bytes of a cache line, the alignment to use to
+   * keep data written by different threads on separate lines.
+   */
+  public static final long      CACHE_LINE = 64;
+
+  /**
+   * The size in bytes of a page of memory.
+   */
+  public static final long      PAGE_SIZE;
+
+  static {
+    UNSAFE  = load_unsafe();
+    BACKEND = Backend.load(UNSAFE);
+
+    if (BACKEND == null)
+      throw new AssertionError("neither sun.misc.Unsafe nor java.lang.foreign is available");
+
+    LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    ARRAY_LONG_BASE    = array_base(long[].class);
+    ARRAY_DOUBLE_BASE  = array_base(double[].class);
+    ARRAY_INT_BASE     = array_base(int[].class);
+    ARRAY_FLOAT_BASE   = array_base(float[].class);
+    ARRAY_SHORT_BASE   = array_base(short[].class);
+    ARRAY_CHAR_BASE    = array_base(char[].class);
+    ARRAY_BYTE_BASE    = array_base(byte[].class);
+    ARRAY_BOOLEAN_BASE = array_base(boolean[].class);
+
+    BYTE     = 1;
+    KILOBYTE = 1024 * BYTE;
+    MEGABYTE = 1024 * KILOBYTE;
+    GIGABYTE = 1024 * MEGABYTE;
+
+    PAGE_SIZE = (UNSAFE != null) ? UNSAFE.pageSize() : 4096;
+  }
+
+  /*
+   * Gets sun.misc.Unsafe, or null if it has been removed or access is denied,
+   * in which case only the methods accessing memory through a pointer work.
+   */
+  private static Unsafe load_unsafe() {
+    try {
+      Field field = Unsafe.class.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+
+      return (Unsafe) field.get(null);
+
+    } catch (Exception | LinkageError ex) {
+      return null;
+    }
+  }
+
+  /*
+   * Gets sun.misc.Unsafe for the methods which cannot work without it,
+   * throwing if it is unavailable. The check is on a constant, so it is
+   * compiled away when Unsafe is present.
+   */
+  static Unsafe unsafe() {
+    if (UNSAFE == null)
+      throw new UnsupportedOperationException("sun.misc.Unsafe is unavailable, only pointer access methods can be used");
+
+    return UNSAFE;
+  }
+
+  private static long array_base(Class<?> clazz) {
+    return (UNSAFE != null) ? UNSAFE.arrayBaseOffset(clazz) : 0;
+  }
+
+  /*
+   * Suppresses default constructor, ensuring non-instantiability.
+   */
+  private Memory() {}
+
+  /**
+   * Allocates {@code bytes} bytes to off-heap memory.
+   * Returns the lowest byte in the allocated memory block
+   * which is suitably aligned for any object type.
+   *
+   * <p>The allocated bytes will be uninitialised and
+   * therefore will generally be garbage.
+   *
+   * <p>If a null pointer is passed as {@code pointer},
+   * no action will be performed.
+   *
+   * <p>The JVM wil be unable to GC the bytes allocated here
+   * so they must be released using {@link #free(long)} to
+   * avoid memory leaks. Resize this chunk of memory using
+   * {@link #realloc(long, long)}.
+   *
+   * @param   bytes the size (in bytes) to allocate
+   * @return  a pointer to the lowest byte
+   *          in the allocated memory block
+   * @see     #calloc(long)
+   * @see     #realloc(long, long)
+   */
+  public static long malloc(long bytes) {
+    assert bytes >= 0;
+
+    long pointer = BACKEND.malloc(bytes + HEADER);
+
+    if (METRICS) pointer = MemoryMetrics.allocated(pointer, bytes);
+    if (TRACK && pointer != 0) MemoryTracker.allocated(pointer, bytes);
+
+    return pointer;
+  }
+
+  /**
+   * Allocates <code>bytes</code> bytes to off-heap memory.
+   * Returns the lowest byte in the allocated memory block
+   * which is suitably aligned for any object type.
+   *
+   * <p>The allocated bytes will be initialised to null bytes.
+   *
+   * <p>If a null pointer is passed as {@code pointer},
+   * no action will be performed.
+   *
+   * <p>The JVM wil be unable to GC the bytes allocated here
+   * so they must be released using {@link #free(long)} to
+   * avoid memory leaks. Resize this chunk of memory using
+   * {@link #realloc(long, long)}.
+   *
+   * @param   bytes the size (in bytes) to allocate
+   * @return  a pointer to the lowest byte
+   *          in the allocated memory block
+   * @see     #malloc(long)
+   * @see     #realloc(long, long)
+   */
+  public static long calloc(long bytes) {
+    assert bytes >= 0;
+
+    long pointer =  BACKEND.malloc(bytes + HEADER);
+
+    BACKEND.set(pointer, bytes + HEADER, (byte) 0);
+
+    if (METRICS) pointer = MemoryMetrics.allocated(pointer, bytes);
+    if (TRACK && pointer != 0) MemoryTracker.allocated(pointer, bytes);
+
+    return pointer;
+  }
+
+  /**
+   * Re-sizes a current block of off-heap memory pointed to
+   * by {@code pointer} to the new size, {@code bytes},
+   * specified in bytes. Returns the lowest byte in the allocated
+   * memory block which is suitably aligned for any object type.
+   *
+   * <p>The new allocated bytes will be uninitialised and
+   * therefore will generally be garbage.
+   *
+   * <p>If a null pointer is passed as {@code pointer},
+   * realloc behaves just like {@link #malloc(long)}. If
+   * the requested new size is zero, a null pointer will
+   * be returned.
+   *
+   * <p>The JVM wil be unable to GC the bytes allocated here
+   * so they must be released using {@link #free(long)} to
+   * avoid memory leaks. Resize this chunk of memory using
+   * {@link #realloc(long, long)}.
+   **
+   * @param   pointer the pointer to the pre-allocated block of memory
+   * @param   bytes   the size (in bytes) to resize the block to
+   * @return  a pointer to the lowest byte in the new
+   *          allocated memory block
+   * @see     #malloc(long)
+   * @see     #calloc(long)
+   */
+  public static long realloc(long pointer, long bytes) {
+    assert pointer != 0;
+
+    /*
+     * The old block stays recorded until the backend has re-sized it, so
+     * tracking is left intact if re-sizing fails.
+     */
+    if (TRACK) MemoryTracker.check(pointer);
+
+    long resized;
+
+    if (METRICS && bytes == 0) {
+      BACKEND.free(MemoryMetrics.freed(pointer));
+      resized = 0;
+
+    } else if (METRICS) {
+      long old_bytes = MemoryMetrics.size(pointer);
+
+      resized = BACKEND.realloc(pointer - HEADER, bytes + HEADER);
+      resized = MemoryMetrics.reallocated(resized, old_bytes, bytes);
+
+    } else {
+      resized = BACKEND.realloc(pointer, bytes);
+    }
+
+    if (TRACK) {
+      MemoryTracker.freed(pointer);
+
+      if (resized != 0) MemoryTracker.allocated(resized, bytes);
+    }
+
+    return resized;
+  }
+
+  /**
+   * Frees the memory allocated at the address {@code pointer} as
+   * allocated by {@link #malloc(long)}, {@link #calloc(long)}
+   * or {@link #realloc(long, long)}.
+   *
+   * <p>If a null pointer is passed as {@code pointer},
+   * no action will be performed.
+   *
+   * <p>Freeing a pointer twice, or a pointer not allocated by
+   * this class, is undefined unless tracking is enabled, see
+   * {@link MemoryTracker}.
+   *
+   * @param pointer the pointer to a block of allocated heap memory to free.
+   * @see   #malloc(long)
+   * @see   #calloc(long)
+   * @see   #realloc(long, long)
+   */
+  public static void free(long pointer) {
+    if (pointer == 0) return;
+
+    if (TRACK)   MemoryTracker.freed(pointer);
+    if (METRICS) pointer = MemoryMetrics.freed(pointer);
+
+    BACKEND.free(pointer);
+  }
+
+  /**
+   * Allocates {@code bytes} bytes to off-heap memory, aligned to
+   * {@code alignment} bytes, such as {@link #CACHE_LINE} to avoid false
+   * sharing or {@link #PAGE_SIZE}. Returns the lowest byte in the allocated
+   * memory block, which is a multiple of {@code alignment}.
+   *
+   * <p>The allocated bytes will be uninitialised and
+   * therefore will generally be garbage.
+   *
+   * <p>The block is carved from a larger block allocated by {@link #malloc(long)},
+   * with the size, alignment and underlying pointer recorded in the 24 bytes
+   * before the aligned pointer, so it must be released using
+   * {@link #free_aligned(long)}, not {@link #free(long)}.
+   *
+   * <p>This is the equivalent of {@code aligned_alloc} in C.
+   *
+   * @param   bytes     the size (in bytes) to allocate
+   * @param   alignment the alignment, a power of two
+   * @return  a pointer to the lowest byte in the
+   *          allocated memory block
+   * @see     #calloc_aligned(long, long)
+   * @see     #realloc_aligned(long, long)
+   * @see     #free_aligned(long)
+   */
+  public static long malloc_aligned(long bytes, long alignment) {
+    assert bytes >= 0 && alignment > 0 && (alignment & (alignment - 1)) == 0;
+
+    long block   = malloc(bytes + alignment - 1 + ALIGNED_HEADER);
+    long pointer = (block + ALIGNED_HEADER + alignment - 1) & -alignment;
+
+    aligned_header(pointer, alignment, bytes, block);
+
+    return pointer;
+  }
+
+  /**
+   * Allocates {@code bytes} bytes to off-heap memory, aligned to
+   * {@code alignment} bytes and initialised to null bytes.
+   *
+   * @param   bytes     the size (in bytes) to allocate
+   * @param   alignment the alignment, a power of two
+   * @return  a pointer to the lowest byte in the
+   *          allocated memory block
+   * @see     #malloc_aligned(long, long)
+   * @see     #free_aligned(long)
+   */
+  public static long calloc_aligned(long bytes, long alignment) {
+    long pointer = malloc_aligned(bytes, alignment);
+
+    memset(pointer, (byte) 0, bytes);
+
+    return pointer;
+  }
+
+  /**
+   * Re-sizes a block of off-heap memory allocated by {@link #malloc_aligned(long, long)}
+   * or {@link #calloc_aligned(long, long)} to {@code bytes} bytes, keeping its alignment
+   * and its contents up to the lesser of the old and new sizes.
+   *
+   * <p>The new bytes will be uninitialised and
+   * therefore will generally be garbage.
+   *
+   * @param   pointer the pointer to the aligned block of memory
+   * @param   bytes   the size (in bytes) to resize the block to
+   * @return  a pointer to the lowest byte in the new
+   *          allocated memory block
+   * @see     #malloc_aligned(long, long)
+   * @see     #free_aligned(long)
+   */
+  public static long realloc_aligned(long pointer, long bytes) {
+    assert pointer != 0 && bytes >= 0;
+
+    long alignment = memget_l(pointer - 24);
+    long old_bytes = memget_l(pointer - 16);
+    long block     = memget_l(pointer - 8);
+    long offset    = pointer - block;
+
+    block = realloc(block, bytes + alignment - 1 + ALIGNED_HEADER);
+
+    long moved = (block + ALIGNED_HEADER + alignment - 1) & -alignment;
+
+    /*
+     * The underlying block may have moved to an address with
+     * a different alignment, leaving the contents misaligned.
+     */
+    if (moved != block + offset)
+      memmove(moved, block + offset, Math.min(bytes, old_bytes));
+
+    aligned_header(moved, alignment, bytes, block);
+
+    return moved;
+  }
+
+  /**
+   * Frees the memory allocated at the address {@code pointer} as
+   * allocated by {@link #malloc_aligned(long, long)},
+   * {@link #calloc_aligned(long, long)} or {@link #realloc_aligned(long, long)}.
+   *
+   * <p>If a null pointer is passed as {@code pointer},
+   * no action will be performed.
+   *
+   * @param pointer the pointer to a block of aligned memory to free.
+   * @see   #malloc_aligned(long, long)
+   */
+  public static void free_aligned(long pointer) {
+    if (pointer == 0) return;
+
+    free(memget_l(pointer - 8));
+  }
+
+  /*
+   * Writes the header of an aligned block, found in the
+   * ALIGNED_HEADER bytes before the aligned pointer.
+   */
+  private static void aligned_header(long pointer, long alignment, long bytes, long block) {
+    memput(pointer - 24, alignment);
+    memput(pointer - 16, bytes);
+    memput(pointer - 8,  block);
+  }
+
+  /**
+   * Allocates at least {@code bytes} bytes to off-heap memory backed by huge
+   * pages. The size is rounded up to a whole number of huge pages and the
+   * pointer returned is aligned to a huge page.
+   *
+   * <p>The allocated bytes will be uninitialised and
+   * therefore will generally be garbage.
+   *
+   * <p>Huge pages cut the TLB misses of random access to large tables. On Linux
+   * the memory is taken from the reserved pool of huge pages if it has enough
+   * free pages, either directly on JDK 22 and above or through a file on a
+   * {@code hugetlbfs} mount such as {@code /dev/hugepages} on any JDK. Otherwise
+   * it falls back to normal pages, which on JDK 22 and above are advised to be
+   * backed by transparent huge pages, and elsewhere are allocated by
+   * {@link #malloc_aligned(long, long)} aligned to a huge page. Either way the
+   * memory may be used with every method of this class.
+   *
+   * <p>Whether the memory came from the reserved pool is reported by
+   * {@link #is_huge(long)}. When it did not, transparent huge pages set to
+   * {@code madvise} in {@code /sys/kernel/mm/transparent_hugepage/enabled} only
+   * back the advised mapping made on JDK 22 and above, and set to {@code never}
+   * back nothing, so the memory is then likely to use normal pages.
+   *
+   * <p>The memory must be released using {@link #free_huge(long)}.
+   *
+   * @param   bytes the size (in bytes) to allocate
+   * @return  a pointer to the lowest byte in the
+   *          allocated memory block
+   * @see     #is_huge(long)
+   * @see     #free_huge(long)
+   */
+  public static long malloc_huge(long bytes) {
+    assert bytes >= 0;
+
+    return HugePages.allocate(bytes);
+  }
+
+  /**
+   * Frees the memory allocated at the address {@code pointer}
+   * as allocated by {@link #malloc_huge(long)}.
+   *
+   * <p>If a null pointer is passed as {@code pointer},
+   * no action will be performed.
+   *
+   * @param pointer the pointer to a block of huge page memory to free.
+   * @see   #malloc_huge(long)
+   */
+  public static void free_huge(long pointer) {
+    if (pointer == 0) return;
+
+    HugePages.free(pointer);
+  }
+
+  /**
+   * Tests whether the memory at {@code pointer}, as allocated by
+   * {@link #malloc_huge(long)}, was taken from the reserved pool of huge
+   * pages, and so is certain to be backed by huge pages. Returns false if
+   * the allocation fell back to normal pages.
+   *
+   * @param   pointer the pointer returned by {@link #malloc_huge(long)}
+   * @return  {@code true} if the memory is backed by reserved huge pages
+   * @see     #malloc_huge(long)
+   */
+  public static boolean is_huge(long pointer) {
+    assert pointer != 0;
+
+    return HugePages.huge(pointer);
+  }
+
+  /**
+   * Maps {@code length} bytes of the file at {@code path}, starting at
+   * {@code offset}, into memory. Returns a pointer to the first byte which
+   * may be used with every method of this class.
+   *
+   * <p>With {@link MapMode#READ_WRITE} writes through the pointer are written
+   * back to the file, which is created if it does not exist and extended if
+   * it is shorter than {@code offset + length}. Writes to a
+   * {@link MapMode#PRIVATE} mapping are never written back, and a
+   * {@link MapMode#READ_ONLY} mapping must not be written to at all.
+   *
+   * <p>Before JDK 22 mappings are limited to {@code Integer.MAX_VALUE} bytes,
+   * as they are made through a {@link java.nio.MappedByteBuffer}. On JDK 22 and
+   * above files are mapped through a {@code MemorySegment}, which has no limit.
+   * The region must be released using {@link #munmap(long)}, after which any access
+   * through the pointer will crash the JVM.
+   *
+   * <p>This is the equivalent of {@code mmap} in C.
+   *
+   * @param   path   the file to map
+   * @param   offset the position in the file of the first byte to map
+   * @param   length the number of bytes to map
+   * @param   mode   the mapping mode
+   * @return  a pointer to the first byte of the mapped region
+   * @throws  IOException if the file cannot be opened or mapped
+   * @throws  IllegalArgumentException if {@code length} is more than can be
+   *          mapped on this JDK
+   * @see     #msync(long)
+   * @see     #mremap(long, long)
+   * @see     #munmap(long)
+   */
+  public static long mmap(Path path, long offset, long length, MapMode mode) throws IOException {
+    return MappedRegion.map(path, offset, length, mode);
+  }
+
+  /**
+   * Forces any changes made to the region mapped at {@code pointer}
+   * to be written to the storage device holding the file.
+   *
+   * <p>This is the equivalent of {@code msync} in C with {@code MS_SYNC}.
+   *
+   * @param   pointer the pointer returned by {@link #mmap(Path, long, long, MapMode)}
+   * @see     #mmap(Path, long, long, MapMode)
+   */
+  public static void msync(long pointer) {
+    MappedRegion.get(pointer).force();
+  }
+
+  /**
+   * Re-sizes the region mapped at {@code pointer} to {@code length} bytes,
+   * extending the file if needed. Returns a pointer to the first byte of the
+   * new mapping, which will generally differ from {@code pointer}.
+   *
+   * <p>The old mapping is unmapped, so {@code pointer} must not be used again.
+   *
+   * <p>This is the equivalent of {@code mremap} in C with {@code MREMAP_MAYMOVE}.
+   *
+   * @param   pointer the pointer returned by {@link #mmap(Path, long, long, MapMode)}
+   * @param   length  the number of bytes to map
+   * @return  a pointer to the first byte of the new mapping
+   * @throws  IOException if the file cannot be mapped
+   * @throws  IllegalArgumentException if {@code length} is more than can be
+   *          mapped on this JDK
+   * @see     #mmap(Path, long, long, MapMode)
+   */
+  public static long mremap(long pointer, long length) throws IOException {
+    return MappedRegion.get(pointer).remap(length);
+  }
+
+  /**
+   * Unmaps the region mapped at {@code pointer}. Changes to a
+   * {@link MapMode#READ_WRITE} mapping are written back to the file
+   * by the operating system, use {@link #msync(long)} first if they
+   * must reach storage before this returns.
+   *
+   * <p>This is the equivalent of {@code munmap} in C.
+   *
+   * @param   pointer the pointer returned by {@link #mmap(Path, long, long, MapMode)}
+   * @see     #mmap(Path, long, long, MapMode)
+   */
+  public static void munmap(long pointer) {
+    MappedRegion.get(pointer).unmap();
+  }
+
+  private static Object min_instance(Class clazz) {
+    try {
+      if (clazz.isPrimitive()) switch (clazz.getName()) {
+
+        case "long"   : return (long)    0;
+        case "double" : return (double)  0;
+        case "int"    : return           0;
+        case "float"  : return (float)   0;
+        case "char"   : return (char)    0;
+        case "short"  : return (short)   0;
+        case "byte"   : return (byte)    0;
+        case "boolean": return false;
+
+      } else if (clazz.isArray()) switch (clazz.getName()) {
+
+        case "[J"     : return new long[]    {0};
+        case "[D"     : return new double[]  {0};
+        case "[I"     : return new int[]     {0};
+        case "[F"     : return new float[]   {0};
+        case "[C"     : return new char[]    {0};
+        case "[S"     : return new short[]   {0};
+        case "[B"     : return new byte[]    {0};
+        case "[Z"     : return new boolean[] {false};
+      }
+
+      Constructor ctor          = clazz.getDeclaredConstructors()[0];
+      int ctor_params_cnt       = ctor.getParameterCount();
+      Class[] ctor_param_types  = ctor.getParameterTypes();
+      Object[] ctor_params      = new Object[ctor_params_cnt];
+
+      for (int i = 0; i < ctor_params_cnt; i++) {
+        switch (ctor_param_types[i].getName()) {
+
+          case "java.lang.Long"     :  case "long"   : ctor_params[i] = (long)     0;   break;
+          case "java.lang.Double"   :  case "double" : ctor_params[i] = (double)   0;   break;
+          case "java.lang.Integer"  :  case "int"    : ctor_params[i] =            0;   break;
+          case "java.lang.Float"    :  case "float"  : ctor_params[i] = (float)    0;   break;
+          case "java.lang.Character":  case "char"   : ctor_params[i] = (char)     0;   break;
+          case "java.lang.Short"    :  case "short"  : ctor_params[i] = (short)    0;   break;
+          case "java.lang.Byte"     :  case "byte"   : ctor_params[i] = (byte)     0;   break;
+          case "java.lang.Boolean"  :  case "boolean": ctor_params[i] = false;          break;
+
+          case "[J"     : ctor_params[i] = new long[]    {0};      break;
+          case "[D"     : ctor_params[i] = new double[]  {0};      break;
+          case "[I"     : ctor_params[i] = new int[]     {0};      break;
+          case "[F"     : ctor_params[i] = new float[]   {0};      break;
+          case "[C"     : ctor_params[i] = new char[]    {0};      break;
+          case "[S"     : ctor_params[i] = new short[]   {0};      break;
+          case "[B"     : ctor_params[i] = new byte[]    {0};      break;
+          case "[Z"     : ctor_params[i] = new boolean[] {false};  break;
+
+          case "java.lang.String" : ctor_params[i] = "";            break;
+
+          default       : ctor_params[i] = null;                                              break;
+        }
+      }
+
+      ctor.setAccessible(true);
+
+      return ctor.newInstance(ctor_params);
+
+    } catch (Exception ex) {
+      throw new IllegalArgumentException("cannot construct an instance of " + clazz.getName(), ex);
+    }
+  }
+
+  /**
+   * Gets the size of the Object, {@code obj} in bytes.
+   *
+   * <p>If the Object is an array, the size will be multiplied
+   * by the length of the array to ensure enough space for all elements.
+   *
+   * <p>Should be used with {@link #malloc(long)}, {@link #calloc(long)} or {@link #realloc(long, long)}
+   * to allocate the correct amount of bytes for the specific Object
+   *
+   * <p>This is the size of the Object when copied to off-heap memory by
+   * {@link #memput(long, Object)}, not the memory it takes on the heap,
+   * for which see {@link #sizeof_deep(Object)}.
+   *
+   * <p>An object referenced more than once is counted each time, as each
+   * reference gets a copy of it, so an object which can reach itself
+   * through its fields has no such size.
+   *
+   * @param   obj the Object to size
+   * @return  the size of the Object in bytes
+   * @throws  IllegalArgumentException if {@code obj} can reach itself
+   *          through its reference fields
+   */
+  public static long sizeof(Object obj) {
+    return sizeof(obj.getClass(), obj, new IdentitySet(8));
+  }
+
+  /**
+   * Gets the number of bytes of heap memory retained by the Object,
+   * {@code obj}, being the size of {@code obj} and of every object
+   * reachable from it through its fields and array elements.
+   *
+   * <p>Each object is counted once however many times it is referenced,
+   * so cycles and shared objects are handled. Fields of superclasses are
+   * included, references are 4 bytes wide with compressed oops, and each
+   * object is padded to the object alignment, as the JVM lays them out.
+   * {@code Class} objects are not counted.
+   *
+   * <p>The graph is walked without recursion and the layout of each class
+   * is computed only once, so graphs of tens of millions of objects can be
+   * sized, though the result is only a snapshot if other threads are
+   * changing the graph at the same time.
+   *
+   * @param   obj the root of the object graph to size
+   * @return  the retained size of the object graph in bytes,
+   *          or 0 if {@code obj} is null
+   */
+  public static long sizeof_deep(Object obj) {
+    return ObjectSizer.size(obj);
+  }
+
+  /**
+   * Gets the number of bytes of heap memory retained by the Object,
+   * {@code obj}, as {@link #sizeof_deep(Object)} does, along with the number
+   * of objects and bytes of each class, walking the graph with every thread
+   * of the common {@link ForkJoinPool}.
+   *
+   * @param   obj the root of the object graph to size
+   * @return  the retained size of the object graph, by class
+   * @see     #sizeof_parallel(Object, ForkJoinPool)
+   */
+  public static HeapHistogram sizeof_parallel(Object obj) {
+    return sizeof_parallel(obj, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Gets the number of bytes of heap memory retained by the Object,
+   * {@code obj}, as {@link #sizeof_deep(Object)} does, along with the number
+   * of objects and bytes of each class, walking the graph with every thread
+   * of {@code pool}.
+   *
+   * <p>Threads steal parts of the graph from each other as they run out of
+   * objects to visit, and share a single set of visited objects, so each
+   * object is counted once. Using a pool of its own keeps a long walk
+   * from holding up other tasks in the common pool.
+   *
+   * @param   obj  the root of the object graph to size
+   * @param   pool the pool to walk the graph with
+   * @return  the retained size of the object graph, by class
+   */
+  public static HeapHistogram sizeof_parallel(Object obj, ForkJoinPool pool) {
+    return ParallelSizer.size(obj, pool);
+  }
+
+  /**
+   * Gets the size of a class, {@code c} in bytes.
+   *
+   * <p>Should be used with {@link #malloc(long)}, {@link #calloc(long)}
+   * or {@link #realloc(long, long)} to allocate the correct amount
+   * of bytes for the specific Object
+   *
+   * <p>Fields are laid out as on the heap, including the gaps left by the
+   * JVM's field packing, and the whole class pads to the next multiple of
+   * the object alignment, 8 bytes unless set by
+   * {@code -XX:ObjectAlignmentInBytes}.
+   *
+   * <p>This is the size of an instance whose reference fields are all
+   * null, computed from the class alone without creating an instance.
+   * An array class has no fixed size, so gives 0, size the array itself
+   * using {@link #sizeof(Object)}.
+   *
+   * @param   clazz the class to size
+   * @return  the size of the class in bytes
+   */
+  public static long sizeof(Class clazz) {
+    if (clazz.isPrimitive()) return Layout.width(Layout.kind(clazz));
+    if (clazz.isArray())     return 0;
+    if (clazz.isEnum())      return 4;
+
+    return Layout.align(Layout.of(clazz).size);
+  }
+
+  /*
+   * Gets the size of o, where path holds the objects whose fields
+   * are being sized, each of which o must not be.
+   */
+  private static long sizeof(Class clazz, Object o, IdentitySet path) {
+    if (o == null || clazz == null) return 0;
+
+    if (clazz.isPrimitive()) return Layout.width(Layout.kind(clazz));
+
+    if (clazz.isArray()) {
+      int kind = Layout.kind(clazz);
+
+      return (kind < Layout.OBJECT) ? Layout.array_size(kind, o) : 8;
+
+    } if (clazz.isEnum()) return 4;
+
+    Layout layout = Layout.of(clazz);
+    long   size   = layout.size;
+
+    if (!path.add(o))
+      throw new IllegalArgumentException(clazz.getName() + " instance references itself");
+
+    for (int i = 0; i < layout.kinds.length; i++) {
+      int kind = layout.kinds[i];
+
+      if (kind < Layout.A_LONG) continue;
+
+      Object val = layout.reference(o, i);
+
+      if (val == null) continue;
+
+      if (kind < Layout.OBJECT)
+        size += Layout.array_size(kind, val);
+
+      else
+        size += sizeof(val.getClass(), val, path) - Layout.HEADER;
+    }
+
+    path.remove(o);
+
+    return Layout.align(size);
+  }
+
+  /**
+   * Gets the pointer of the first native memory address
+   * containing the byte, {@code val}, within the first
+   * {@code len} bytes starting from the address, {@code pointer}.
+   *
+   * <p>This reads 8 bytes at a time from 8 byte aligned addresses,
+   * checking all of them for {@code val} at once, with single bytes
+   * read before the first and after the last aligned address. When
+   * the Vector API is available, longer ranges are searched a whole
+   * vector at a time instead.
+   *
+   * @param   pointer  the address to start at.
+   * @param   val      the byte to look for.
+   * @param   len      the number of bytes to search
+   * @return  a pointer to the address containing the byte, {@code val},
+   *          a null pointer if the byte cannot be found.
+   * @see     #memrchr(long, byte, long)
+   */
+  public static long memchr(long pointer, byte val, long len) {
+    assert pointer != 0 && len >= 0;
+
+    if (VECTOR != null && len >= VECTOR_MIN) return VECTOR.memchr(pointer, val, len);
+
+    long end = pointer + len;
+    long p   = pointer;
+
+    for (; (p & 7) != 0 && p < end; p++)
+      if (BACKEND.get_b(p) == val)
+        return p;
+
+    long pattern = (val & 0xFFL) * LSB;
+
+    for (; p + 8 <= end; p += 8) {
+      long found = first_zero(BACKEND.get_l(p) ^ pattern);
+
+      if (found != 0)
+        return p + first_byte(found);
+    }
+
+    for (; p < end; p++)
+      if (BACKEND.get_b(p) == val)
+        return p;
+
+    return 0;
+  }
+
+  /**
+   * Gets the pointer of the last native memory address
+   * containing the byte, {@code val}, within the first
+   * {@code len} bytes starting from the address, {@code pointer}.
+   *
+   * <p>Like {@link #memchr(long, byte, long)} this reads 8 bytes at a time
+   * from 8 byte aligned addresses, working backwards from the end.
+   *
+   * @param   pointer  the address to start at.
+   * @param   val      the byte to look for.
+   * @param   len      the number of bytes to search
+   * @return  a pointer to the address containing the byte, {@code val},
+   *          a null pointer if the byte cannot be found.
+   * @see     #memchr(long, byte, long)
+   */
+  public static long memrchr(long pointer, byte val, long len) {
+    assert pointer != 0 && len >= 0;
+
+    long p = pointer + len;
+
+    for (; (p & 7) != 0 && p > pointer; p--)
+      if (BACKEND.get_b(p - 1) == val)
+        return p - 1;
+
+    long pattern = (val & 0xFFL) * LSB;
+
+    for (; p - 8 >= pointer; p -= 8) {
+      long found = zero_bytes(BACKEND.get_l(p - 8) ^ pattern);
+
+      if (found != 0)
+        return p - 8 + last_byte(found);
+    }
+
+    for (; p > pointer; p--)
+      if (BACKEND.get_b(p - 1) == val)
+        return p - 1;
+
+    return 0;
+  }
+
+  /**
+   * Gets the length of the null terminated string of bytes starting
+   * at the address {@code pointer}, not including the null byte.
+   *
+   * <p>This reads 8 bytes at a time from 8 byte aligned addresses. An
+   * aligned read never crosses a page boundary, so no bytes are read
+   * from a page the string does not extend into.
+   *
+   * <p>The results are undefined if there is no null byte present.
+   *
+   * @param   pointer the address of the string
+   * @return  the number of bytes before the first null byte
+   */
+  public static long strlen(long pointer) {
+    assert pointer != 0;
+
+    long p = pointer;
+
+    for (; (p & 7) != 0; p++)
+      if (BACKEND.get_b(p) == 0)
+        return p - pointer;
+
+    for (;; p += 8) {
+      long found = first_zero(BACKEND.get_l(p));
+
+      if (found != 0)
+        return p + first_byte(found) - pointer;
+    }
+  }
+
+  /*
+   * Flags the high bit of each null byte in word, exactly.
+   */
+  private static long zero_bytes(long word) {
+    return ~(((word & LOW7) + LOW7) | word | LOW7);
+  }
+
+  /*
+   * Flags the high bit of the null byte in word at the lowest address and
+   * possibly some after it. On little endian machines the classic cheaper
+   * test suffices, as it only gives false positives above a null byte.
+   */
+  private static long first_zero(long word) {
+    return LITTLE_ENDIAN ? (word - LSB) & ~word & MSB : zero_bytes(word);
+  }
+
+  /*
+   * Index, in memory order, of the first byte flagged in found.
+   */
+  private static int first_byte(long found) {
+    return (LITTLE_ENDIAN ? Long.numberOfTrailingZeros(found) : Long.numberOfLeadingZeros(found)) >>> 3;
+  }
+
+  /*
+   * Index, in memory order, of the last byte flagged in found.
+   */
+  private static int last_byte(long found) {
+    return (63 - (LITTLE_ENDIAN ? Long.numberOfLeadingZeros(found) : Long.numberOfTrailingZeros(found))) >>> 3;
+  }
+
+  /**
+   * Copies {@code len} bytes from the address at
+   * pointer {@code src} to the address at pointer {@code dest}.
+   *
+   * <p>If the copy length, {@code len} is less than 5, this
+   * performs a simple get and put operation. If it is 5 or greater,
+   * it makes a bulk copy, {@code Unsafe.copyMemory} or
+   * {@code MemorySegment.copy} depending on the backend. This is a performance
+   * enhancement as the get and put operation is faster for small
+   * copy lengths, peaking around a length of 5.
+   *
+   * <p>The results are undefined if the source and destination
+   * overlap, use {@link #memmove(long, long, long)} instead.
+   *
+   * @param   dest the destination pointer to copy to
+   * @param   src  the source pointer to copy from
+   * @param   len  the amount of bytes to copy
+   * @see     #memmove(long, long, long)
+   */
+  public static void memcpy(long dest, long src, long len) {
+    assert dest != 0 && src != 0;
+
+    if (len < 5)
+      for (long i = 0; i < len; i++)
+        memput(dest + i, memget_b(src + i));
+
+    else BACKEND.copy(src, dest, len);
+  }
+
+  /**
+   * Copies {@code len} bytes from the address at pointer {@code src} to
+   * the address at pointer {@code dest}, where the source and destination
+   * may overlap. The bytes are copied as if through a temporary buffer.
+   *
+   * <p>When the source and destination overlap, the copy runs towards the
+   * lower addresses if {@code dest} is below {@code src}, and towards the
+   * higher addresses otherwise, so that no byte is overwritten before it has
+   * been read. If they are at least 64 bytes apart, the copy is made in blocks
+   * no larger than that distance using a bulk copy, otherwise
+   * 8 bytes at a time.
+   *
+   * @param   dest the destination pointer to copy to
+   * @param   src  the source pointer to copy from
+   * @param   len  the amount of bytes to copy
+   * @see     #memcpy(long, long, long)
+   */
+  public static void memmove(long dest, long src, long len) {
+    assert dest != 0 && src != 0 && len >= 0;
+
+    long dist = Math.abs(dest - src);
+
+    if (dist == 0 || len == 0) return;
+
+    if (dist >= len) {
+      BACKEND.copy(src, dest, len);
+      return;
+    }
+
+    if (dist >= 64) {
+      long block = Math.min(dist, COPY_CHUNK);
+
+      if (dest < src)
+        for (long i = 0; i < len; i += block)
+          BACKEND.copy(src + i, dest + i, Math.min(block, len - i));
+
+      else
+        for (long i = len; i > 0; i -= block)
+          BACKEND.copy(src + i - Math.min(block, i), dest + i - Math.min(block, i), Math.min(block, i));
+
+      return;
+    }
+
+    if (dest < src) {
+      long i = 0;
+
+      for (; i <= len - 8; i += 8)
+        BACKEND.put(dest + i, BACKEND.get_l(src + i));
+
+      for (; i < len; i++)
+        BACKEND.put(dest + i, BACKEND.get_b(src + i));
+
+    } else {
+      long i = len;
+
+      for (; i >= 8; i -= 8)
+        BACKEND.put(dest + i - 8, BACKEND.get_l(src + i - 8));
+
+      for (; i > 0; i--)
+        BACKEND.put(dest + i - 1, BACKEND.get_b(src + i - 1));
+    }
+  }
+
+  /**
+   * Sets the first {@code len} bytes of the block of memory pointed by
+   * {@code addr} to the specified value, {@code val}.
+   *
+   * @param   pointer the pointer to the block of memory to start setting at
+   * @param   val     the value to be set
+   * @param   len     the number of bytes to be set to the specified value, {@code val}
+   */
+  public static void memset(long pointer, byte val, long len) {
+    assert pointer != 0;
+
+    if (VECTOR != null && len >= VECTOR_MIN) VECTOR.memset(pointer, val, len);
+
+    else BACKEND.set(pointer, len, val);
+  }
+
+  /**
+   * Sets the bytes of the block of memory pointed by {@code addr}
+   * to the long values specified in the array, {@code buffer}
+   * in the order in which they are specified.
+   *
+   * @param   pointer the pointer to the block of memory to start setting at
+   * @param   buffer  the array of values to be set
+   */
+  public static void memset(long pointer, long[] buffer) {
+    assert pointer != 0 && buffer != null;
+
+    memput(buffer, 0, pointer, buffer.length);
+  }
+
+  /**
+   * Sets the bytes of the block of memory pointed by {@code addr}
+   * to the double values specified in the array, {@code buffer}
+   * in the order in which they are specified.
+   *
+   * @param   pointer the pointer to the block of memory to start setting at
+   * @param   buffer  the array of values to be set
+   */
+  public static void memset(long pointer, double[] buffer) {
+    assert pointer != 0 && buffer != null;
+
+    memput(buffer, 0, pointer, buffer.length);
+  }
+
+  /**
+   * Sets the bytes of the block of memory pointed by {@code addr}
+   * to the int values specified in the array, {@code buffer}
+   * in the order in which they are specified.
+   *
+   * @param   pointer the pointer to the block of memory to start setting at
+   * @param   buffer  the array of values to be set
+   */
+  public static void memset(long pointer, int[] buffer) {
+    assert pointer != 0 && buffer != null;
+
+    memput(buffer, 0, pointer, buffer.length);
+  }
+
+  /**
+   * Sets the bytes of the block of memory pointed by {@code addr}
+   * to the float values specified in the array, {@code buffer}
+   * in the order in which they are specified.
+   *
+   * @param   pointer the pointer to the block of memory to start setting at
+   * @param   buffer  the array of values to be set
+   */
+  public static void memset(long pointer, float[] buffer) {
+    assert pointer != 0 && buffer != null;
+
+    memput(buffer, 0, pointer, buffer.length);
+  }
+
+  /**
+   * Sets the bytes of the block of memory pointed by {@code addr}
+   * to the short values specified in the array, {@code buffer}
+   * in the order in which they are specified.
+   *
+   * @param   pointer the pointer to the block of memory to start setting at
+   * @param   buffer  the array of values to be set
+   */
+  public static void memset(long pointer, short[] buffer) {
+    assert pointer != 0 && buffer != null;
+
+    memput(buffer, 0, pointer, buffer.length);
+  }
+
+  /**
+   * Sets the bytes of the block of memory pointed by {@code addr}
+   * to the byte values specified in the array, {@code buffer}
+   * in the order in which they are specified.
+   *
+   * @param   pointer the pointer to the block of memory to start setting at
+   * @param   buffer  the array of values to be set
+   */
+  public static void memset(long pointer, byte[] buffer) {
+    assert pointer != 0 && buffer != null;
+
+    memput(buffer, 0, pointer, buffer.length);
+  }
+
+  /**
+   * Sets the bytes of the block of memory pointed by {@code addr}
+   * to the char values specified in the array, {@code buffer}
+   * in the order in which they are specified.
+   *
+   * @param   pointer the pointer to the block of memory to start setting at
+   * @param   buffer  the array of values to be set
+   */
+  public static void memset(long pointer, char[] buffer) {
+    assert pointer != 0 && buffer != null;
+
+    memput(buffer, 0, pointer, buffer.length);
+  }
+
+  /**
+   * Sets the bytes of the block of memory pointed by {@code addr}
+   * to the boolean values specified in the array, {@code buffer}
+   * in the order in which they are specified.
+   *
+   * @param   pointer the pointer to the block of memory to start setting at
+   * @param   buffer  the array of values to be set
+   */
+  public static void memset(long pointer, boolean[] buffer) {
+    assert pointer != 0 && buffer != null;
+
+    memput(buffer, 0, pointer, buffer.length);
+  }
+
+  /**
+   * Copies {@code count} elements of the long array {@code src}, starting at
+   * index {@code src_index}, to the block of memory pointed to by {@code pointer}.
+   *
+   * @param   src       the array to copy from
+   * @param   src_index the index of the first element to copy
+   * @param   pointer   the pointer to the block of memory to copy to
+   * @param   count     the number of elements to copy
+   */
+  public static void memput(long[] src, int src_index, long pointer, int count) {
+    assert pointer != 0 && src != null
+      &&   src_index >= 0 && count >= 0
+      &&   src_index + count <= src.length;
+
+    copy(src, ARRAY_LONG_BASE + ((long) src_index << 3), null, pointer, (long) count << 3);
+  }
+
+  /**
+   * Copies {@code count} elements of the double array {@code src}, starting at
+   * index {@code src_index}, to the block of memory pointed to by {@code pointer}.
+   *
+   * @param   src       the array to copy from
+   * @param   src_index the index of the first element to copy
+   * @param   pointer   the pointer to the block of memory to copy to
+   * @param   count     the number of elements to copy
+   */
+  public static void memput(double[] src, int src_index, long pointer, int count) {
+    assert pointer != 0 && src != null
+      &&   src_index >= 0 && count >= 0
+      &&   src_index + count <= src.length;
+
+    copy(src, ARRAY_DOUBLE_BASE + ((long) src_index << 3), null, pointer, (long) count << 3);
+  }
+
+  /**
+   * Copies {@code count} elements of the int array {@code src}, starting at
+   * index {@code src_index}, to the block of memory pointed to by {@code pointer}.
+   *
+   * @param   src       the array to copy from
+   * @param   src_index the index of the first element to copy
+   * @param   pointer   the pointer to the block of memory to copy to
+   * @param   count     the number of elements to copy
+   */
+  public static void memput(int[] src, int src_index, long pointer, int count) {
+    assert pointer != 0 && src != null
+      &&   src_index >= 0 && count >= 0
+      &&   src_index + count <= src.length;
+
+    copy(src, ARRAY_INT_BASE + ((long) src_index << 2), null, pointer, (long) count << 2);
+  }
+
+  /**
+   * Copies {@code count} elements of the float array {@code src}, starting at
+   * index {@code src_index}, to the block of memory pointed to by {@code pointer}.
+   *
+   * @param   src       the array to copy from
+   * @param   src_index the index of the first element to copy
+   * @param   pointer   the pointer to the block of memory to copy to
+   * @param   count     the number of elements to copy
+   */
+  public static void memput(float[] src, int src_index, long pointer, int count) {
+    assert pointer != 0 && src != null
+      &&   src_index >= 0 && count >= 0
+      &&   src_index + count <= src.length;
+
+    copy(src, ARRAY_FLOAT_BASE + ((long) src_index << 2), null, pointer, (long) count << 2);
+  }
+
+  /**
+   * Copies {@code count} elements of the short array {@code src}, starting at
+   * index {@code src_index}, to the block of memory pointed to by {@code pointer}.
+   *
+   * @param   src       the array to copy from
+   * @param   src_index the index of the first element to copy
+   * @param   pointer   the pointer to the block of memory to copy to
+   * @param   count     the number of elements to copy
+   */
+  public static void memput(short[] src, int src_index, long pointer, int count) {
+    assert pointer != 0 && src != null
+      &&   src_index >= 0 && count >= 0
+      &&   src_index + count <= src.length;
+
+    copy(src, ARRAY_SHORT_BASE + ((long) src_index << 1), null, pointer, (long) count << 1);
+  }
+
+  /**
+   * Copies {@code count} elements of the char array {@code src}, starting at
+   * index {@code src_index}, to the block of memory pointed to by {@code pointer}.
+   *
+   * @param   src       the array to copy from
+   * @param   src_index the index of the first element to copy
+   * @param   pointer   the pointer to the block of memory to copy to
+   * @param   count     the number of elements to copy
+   */
+  public static void memput(char[] src, int src_index, long pointer, int count) {
+    assert pointer != 0 && src != null
+      &&   src_index >= 0 && count >= 0
+      &&   src_index + count <= src.length;
+
+    copy(src, ARRAY_CHAR_BASE + ((long) src_index << 1), null, pointer, (long) count << 1);
+  }
+
+  /**
+   * Copies {@code count} elements of the byte array {@code src}, starting at
+   * index {@code src_index}, to the block of memory pointed to by {@code pointer}.
+   *
+   * @param   src       the array to copy from
+   * @param   src_index the index of the first element to copy
+   * @param   pointer   the pointer to the block of memory to copy to
+   * @param   count     the number of elements to copy
+   */
+  public static void memput(byte[] src, int src_index, long pointer, int count) {
+    assert pointer != 0 && src != null
+      &&   src_index >= 0 && count >= 0
+      &&   src_index + count <= src.length;
+
+    copy(src, ARRAY_BYTE_BASE + ((long) src_index << 0), null, pointer, (long) count << 0);
+  }
+
+  /**
+   * Copies {@code count} elements of the boolean array {@code src}, starting at
+   * index {@code src_index}, to the block of memory pointed to by {@code pointer}.
+   *
+   * @param   src       the array to copy from
+   * @param   src_index the index of the first element to copy
+   * @param   pointer   the pointer to the block of memory to copy to
+   * @param   count     the number of elements to copy
+   */
+  public static void memput(boolean[] src, int src_index, long pointer, int count) {
+    assert pointer != 0 && src != null
+      &&   src_index >= 0 && count >= 0
+      &&   src_index + count <= src.length;
+
+    copy(src, ARRAY_BOOLEAN_BASE + ((long) src_index << 0), null, pointer, (long) count << 0);
+  }
+
+  /**
+   * Copies {@code count} long elements from the block of memory pointed to by
+   * {@code pointer} into the array {@code dest}, starting at index {@code dest_index}.
+   *
+   * @param   pointer    the pointer to the block of memory to copy from
+   * @param   dest       the array to copy to
+   * @param   dest_index the index of the first element to copy to
+   * @param   count      the number of elements to copy
+   */
+  public static void memget(long pointer, long[] dest, int dest_index, int count) {
+    assert pointer != 0 && dest != null
+      &&   dest_index >= 0 && count >= 0
+      &&   dest_index + count <= dest.length;
+
+    copy(null, pointer, dest, ARRAY_LONG_BASE + ((long) dest_index << 3), (long) count << 3);
+  }
+
+  /**
+   * Copies {@code count} double elements from the block of memory pointed to by
+   * {@code pointer} into the array {@code dest}, starting at index {@code dest_index}.
+   *
+   * @param   pointer    the pointer to the block of memory to copy from
+   * @param   dest       the array to copy to
+   * @param   dest_index the index of the first element to copy to
+   * @param   count      the number of elements to copy
+   */
+  public static void memget(long pointer, double[] dest, int dest_index, int count) {
+    assert pointer != 0 && dest != null
+      &&   dest_index >= 0 && count >= 0
+      &&   dest_index + count <= dest.length;
+
+    copy(null, pointer, dest, ARRAY_DOUBLE_BASE + ((long) dest_index << 3), (long) count << 3);
+  }
+
+  /**
+   * Copies {@code count} int elements from the block of memory pointed to by
+   * {@code pointer} into the array {@code dest}, starting at index {@code dest_index}.
+   *
+   * @param   pointer    the pointer to the block of memory to copy from
+   * @param   dest       the array to copy to
+   * @param   dest_index the index of the first element to copy to
+   * @param   count      the number of elements to copy
+   */
+  public static void memget(long pointer, int[] dest, int dest_index, int count) {
+    assert pointer != 0 && dest != null
+      &&   dest_index >= 0 && count >= 0
+      &&   dest_index + count <= dest.length;
+
+    copy(null, pointer, dest, ARRAY_INT_BASE + ((long) dest_index << 2), (long) count << 2);
+  }
+
+  /**
+   * Copies {@code count} float elements from the block of memory pointed to by
+   * {@code pointer} into the array {@code dest}, starting at index {@code dest_index}.
+   *
+   * @param   pointer    the pointer to the block of memory to copy from
+   * @param   dest       the array to copy to
+   * @param   dest_index the index of the first element to copy to
+   * @param   count      the number of elements to copy
+   */
+  public static void memget(long pointer, float[] dest, int dest_index, int count) {
+    assert pointer != 0 && dest != null
+      &&   dest_index >= 0 && count >= 0
+      &&   dest_index + count <= dest.length;
+
+    copy(null, pointer, dest, ARRAY_FLOAT_BASE + ((long) dest_index << 2), (long) count << 2);
+  }
+
+  /**
+   * Copies {@code count} short elements from the block of memory pointed to by
+   * {@code pointer} into the array {@code dest}, starting at index {@code dest_index}.
+   *
+   * @param   pointer    the pointer to the block of memory to copy from
+   * @param   dest       the array to copy to
+   * @param   dest_index the index of the first element to copy to
+   * @param   count      the number of elements to copy
+   */
+  public static void memget(long pointer, short[] dest, int dest_index, int count) {
+    assert pointer != 0 && dest != null
+      &&   dest_index >= 0 && count >= 0
+      &&   dest_index + count <= dest.length;
+
+    copy(null, pointer, dest, ARRAY_SHORT_BASE + ((long) dest_index << 1), (long) count << 1);
+  }
+
+  /**
+   * Copies {@code count} char elements from the block of memory pointed to by
+   * {@code pointer} into the array {@code dest}, starting at index {@code dest_index}.
+   *
+   * @param   pointer    the pointer to the block of memory to copy from
+   * @param   dest       the array to copy to
+   * @param   dest_index the index of the first element to copy to
+   * @param   count      the number of elements to copy
+   */
+  public static void memget(long pointer, char[] dest, int dest_index, int count) {
+    assert pointer != 0 && dest != null
+      &&   dest_index >= 0 && count >= 0
+      &&   dest_index + count <= dest.length;
+
+    copy(null, pointer, dest, ARRAY_CHAR_BASE + ((long) dest_index << 1), (long) count << 1);
+  }
+
+  /**
+   * Copies {@code count} byte elements from the block of memory pointed to by
+   * {@code pointer} into the array {@code dest}, starting at index {@code dest_index}.
+   *
+   * @param   pointer    the pointer to the block of memory to copy from
+   * @param   dest       the array to copy to
+   * @param   dest_index the index of the first element to copy to
+   * @param   count      the number of elements to copy
+   */
+  public static void memget(long pointer, byte[] dest, int dest_index, int count) {
+    assert pointer != 0 && dest != null
+      &&   dest_index >= 0 && count >= 0
+      &&   dest_index + count <= dest.length;
+
+    copy(null, pointer, dest, ARRAY_BYTE_BASE + ((long) dest_index << 0), (long) count << 0);
+  }
+
+  /**
+   * Copies {@code count} boolean elements from the block of memory pointed to by
+   * {@code pointer} into the array {@code dest}, starting at index {@code dest_index}.
+   *
+   * @param   pointer    the pointer to the block of memory to copy from
+   * @param   dest       the array to copy to
+   * @param   dest_index the index of the first element to copy to
+   * @param   count      the number of elements to copy
+   */
+  public static void memget(long pointer, boolean[] dest, int dest_index, int count) {
+    assert pointer != 0 && dest != null
+      &&   dest_index >= 0 && count >= 0
+      &&   dest_index + count <= dest.length;
+
+    copy(null, pointer, dest, ARRAY_BOOLEAN_BASE + ((long) dest_index << 0), (long) count << 0);
+  }
+
+  /*
+   * Copies between the heap and off-heap memory in chunks of at most
+   * COPY_CHUNK bytes. Unsafe.copyMemory cannot reach a safepoint while
+   * copying, so one very large copy could hold up every other thread
+   * waiting for a GC.
+   */
+  private static void copy(Object src, long src_offset, Object dest, long dest_offset, long bytes) {
+    while (bytes > 0) {
+      long size = Math.min(bytes, COPY_CHUNK);
+
+      unsafe().copyMemory(src, src_offset, dest, dest_offset, size);
+
+      bytes       -= size;
+      src_offset  += size;
+      dest_offset += size;
+    }
+  }
+
+  /**
+   * Puts the byte, {@code val} at the address pointed to by {@code pointer}.
+   *
+   * @param   pointer the memory location to put the specified byte
+   * @param   val     the byte to put
+   */
+  public static void memput(long pointer, byte val) {
+    assert pointer != 0;
+
+    BACKEND.put(pointer, val);
+  }
+
+  /**
+   * Puts the short, {@code val} at the address pointed to by {@code pointer}.
+   *
+   * @param   pointer the memory location to put the specified short
+   * @param   val     the short to put
+   */
+  public static void memput(long pointer, short val) {
+    assert pointer != 0;
+
+    BACKEND.put(pointer, val);
+  }
+
+  /**
+   * Puts the int, {@code val} at the address pointed to by {@code pointer}.
+   *
+   * @param   pointer the memory location to put the specified int
+   * @param   val     the int to put
+   */
+  public static void memput(long pointer, int val) {
+    assert pointer != 0;
+
+    BACKEND.put(pointer, val);
+  }
+
+  /**
+   * Puts the long, {@code val} at the address pointed to by {@code pointer}.
+   *
+   * <p>This is equivalent of dereferencing a pointer in C
+   *
+   * @param   pointer the memory location to put the specified long
+   * @param   val     the long to put
+   */
+  public static void memput(long pointer, long val) {
+    assert pointer != 0;
+
+    BACKEND.put(pointer, val);
+  }
+
+  /**
+   * Atomically sets the int at the address pointed to by {@code pointer}
+   * to {@code val} if it currently holds {@code expected}.
+   *
+   * <p>This has the memory effects of both reading and writing a volatile
+   * variable, and is the equivalent of {@code atomic_compare_exchange_strong}
+   * in C.
+   *
+   * @param   pointer  the memory location of the int, aligned to 4 bytes
+   * @param   expected the value expected to be held
+   * @param   val      the value to put
+   * @return  {@code true} if the int was set
+   */
+  public static boolean cas(long pointer, int expected, int val) {
+    assert pointer != 0 && (pointer & 3) == 0;
+
+    return unsafe().compareAndSwapInt(null, pointer, expected, val);
+  }
+
+  /**
+   * Atomically sets the long at the address pointed to by {@code pointer}
+   * to {@code val} if it currently holds {@code expected}.
+   *
+   * <p>This has the memory effects of both reading and writing a volatile
+   * variable, and is the equivalent of {@code atomic_compare_exchange_strong}
+   * in C.
+   *
+   * @param   pointer  the memory location of the long, aligned to 8 bytes
+   * @param   expected the value expected to be held
+   * @param   val      the value to put
+   * @return  {@code true} if the long was set
+   */
+  public static boolean cas(long pointer, long expected, long val) {
+    assert pointer != 0 && (pointer & 7) == 0;
+
+    return unsafe().compareAndSwapLong(null, pointer, expected, val);
+  }
+
+  /**
+   * Atomically adds {@code delta} to the int at the address
+   * pointed to by {@code pointer}.
+   *
+   * @param   pointer the memory location of the int, aligned to 4 bytes
+   * @param   delta   the value to add
+   * @return  the int held before adding
+   */
+  public static int get_and_add(long pointer, int delta) {
+    assert pointer != 0 && (pointer & 3) == 0;
+
+    return unsafe().getAndAddInt(null, pointer, delta);
+  }
+
+  /**
+   * Atomically adds {@code delta} to the long at the address
+   * pointed to by {@code pointer}.
+   *
+   * @param   pointer the memory location of the long, aligned to 8 bytes
+   * @param   delta   the value to add
+   * @return  the long held before adding
+   */
+  public static long get_and_add(long pointer, long delta) {
+    assert pointer != 0 && (pointer & 7) == 0;
+
+    return unsafe().getAndAddLong(null, pointer, delta);
+  }
+
+  /**
+   * Atomically sets the int at the address pointed to by {@code pointer}
+   * to {@code val}.
+   *
+   * @param   pointer the memory location of the int, aligned to 4 bytes
+   * @param   val     the value to put
+   * @return  the int held before setting
+   */
+  public static int get_and_set(long pointer, int val) {
+    assert pointer != 0 && (pointer & 3) == 0;
+
+    return unsafe().getAndSetInt(null, pointer, val);
+  }
+
+  /**
+   * Atomically sets the long at the address pointed to by {@code pointer}
+   * to {@code val}.
+   *
+   * @param   pointer the memory location of the long, aligned to 8 bytes
+   * @param   val     the value to put
+   * @return  the long held before setting
+   */
+  public static long get_and_set(long pointer, long val) {
+    assert pointer != 0 && (pointer & 7) == 0;
+
+    return unsafe().getAndSetLong(null, pointer, val);
+  }
+
+  /**
+   * Gets the int at the address pointed to by {@code pointer}
+   * with the memory effects of reading a volatile variable.
+   *
+   * @param   pointer the memory location of the int, aligned to 4 bytes
+   * @return  the int
+   */
+  public static int get_volatile_i(long pointer) {
+    assert pointer != 0 && (pointer & 3) == 0;
+
+    return unsafe().getIntVolatile(null, pointer);
+  }
+
+  /**
+   * Gets the long at the address pointed to by {@code pointer}
+   * with the memory effects of reading a volatile variable.
+   *
+   * @param   pointer the memory location of the long, aligned to 8 bytes
+   * @return  the long
+   */
+  public static long get_volatile_l(long pointer) {
+    assert pointer != 0 && (pointer & 7) == 0;
+
+    return unsafe().getLongVolatile(null, pointer);
+  }
+
+  /**
+   * Gets the int at the address pointed to by {@code pointer} with acquire
+   * semantics, no later read or write may be reordered before it.
+   *
+   * <p>{@code sun.misc.Unsafe} has no weaker acquiring read, so this is
+   * currently a volatile read, which costs no more on x86.
+   *
+   * @param   pointer the memory location of the int, aligned to 4 bytes
+   * @return  the int
+   */
+  public static int get_acquire_i(long pointer) {
+    return get_volatile_i(pointer);
+  }
+
+  /**
+   * Gets the long at the address pointed to by {@code pointer} with acquire
+   * semantics, no later read or write may be reordered before it.
+   *
+   * <p>{@code sun.misc.Unsafe} has no weaker acquiring read, so this is
+   * currently a volatile read, which costs no more on x86.
+   *
+   * @param   pointer the memory location of the long, aligned to 8 bytes
+   * @return  the long
+   */
+  public static long get_acquire_l(long pointer) {
+    return get_volatile_l(pointer);
+  }
+
+  /**
+   * Puts the int, {@code val} at the address pointed to by {@code pointer}
+   * with the memory effects of writing a volatile variable.
+   *
+   * @param   pointer the memory location of the int, aligned to 4 bytes
+   * @param   val     the int to put
+   */
+  public static void put_volatile(long pointer, int val) {
+    assert pointer != 0 && (pointer & 3) == 0;
+
+    unsafe().putIntVolatile(null, pointer, val);
+  }
+
+  /**
+   * Puts the long, {@code val} at the address pointed to by {@code pointer}
+   * with the memory effects of writing a volatile variable.
+   *
+   * @param   pointer the memory location of the long, aligned to 8 bytes
+   * @param   val     the long to put
+   */
+  public static void put_volatile(long pointer, long val) {
+    assert pointer != 0 && (pointer & 7) == 0;
+
+    unsafe().putLongVolatile(null, pointer, val);
+  }
+
+  /**
+   * Puts the int, {@code val} at the address pointed to by {@code pointer}
+   * such that no earlier write is reordered after it, without waiting for
+   * the write to become visible to other threads.
+   *
+   * <p>This is far cheaper than a volatile write and is enough to publish data
+   * written beforehand to a thread which reads the int with
+   * {@link #get_acquire_i(long)}.
+   *
+   * @param   pointer the memory location of the int, aligned to 4 bytes
+   * @param   val     the int to put
+   */
+  public static void put_ordered(long pointer, int val) {
+    assert pointer != 0 && (pointer & 3) == 0;
+
+    unsafe().putOrderedInt(null, pointer, val);
+  }
+
+  /**
+   * Puts the long, {@code val} at the address pointed to by {@code pointer}
+   * such that no earlier write is reordered after it, without waiting for
+   * the write to become visible to other threads.
+   *
+   * <p>This is far cheaper than a volatile write and is enough to publish data
+   * written beforehand to a thread which reads the long with
+   * {@link #get_acquire_l(long)}.
+   *
+   * @param   pointer the memory location of the long, aligned to 8 bytes
+   * @param   val     the long to put
+   */
+  public static void put_ordered(long pointer, long val) {
+    assert pointer != 0 && (pointer & 7) == 0;
+
+    unsafe().putOrderedLong(null, pointer, val);
+  }
+
+  /**
+   * Puts the int, {@code val} at the address pointed to by {@code pointer}
+   * with release semantics. This is the same as {@link #put_ordered(long, int)}.
+   *
+   * @param   pointer the memory location of the int, aligned to 4 bytes
+   * @param   val     the int to put
+   */
+  public static void put_release(long pointer, int val) {
+    put_ordered(pointer, val);
+  }
+
+  /**
+   * Puts the long, {@code val} at the address pointed to by {@code pointer}
+   * with release semantics. This is the same as {@link #put_ordered(long, long)}.
+   *
+   * @param   pointer the memory location of the long, aligned to 8 bytes
+   * @param   val     the long to put
+   */
+  public static void put_release(long pointer, long val) {
+    put_ordered(pointer, val);
+  }
+
+  /**
+   * Ensures no read before the fence is reordered
+   * with any read or write after it.
+   */
+  public static void load_fence() {
+    unsafe().loadFence();
+  }
+
+  /**
+   * Ensures no read or write before the fence is
+   * reordered with any write after it.
+   */
+  public static void store_fence() {
+    unsafe().storeFence();
+  }
+
+  /**
+   * Ensures no read or write before the fence is reordered
+   * with any read or write after it.
+   */
+  public static void full_fence() {
+    unsafe().fullFence();
+  }
+
+  ////////////////////////////////////////////////////////////////////////
+  // BEGIN TEST
+  ////////////////////////////////////////////////////////////////////////
+
+  public static Object memget_field(long pointer, Class clazz, String name) {
+    assert pointer != 0;
+
+    int index = Layout.exact(clazz).index(name);
+
+    return (index < 0) ? null : memget_field(pointer, clazz, index);
+  }
+
+  public static Object memget_field(long pointer, Class clazz, int index) {
+    assert pointer != 0;
+
+    Layout layout = Layout.exact(clazz);
+
+    if (index < 0 || index >= layout.kinds.length) return null;
+
+    long offset = layout.positions[index];
+
+    switch (layout.kinds[index]) {
+      case Layout.LONG:  case Layout.DOUBLE : return memget_l(pointer + offset);
+      case Layout.INT :  case Layout.FLOAT  : return memget_i(pointer + offset);
+      case Layout.CHAR:  case Layout.SHORT  : return memget_s(pointer + offset);
+      case Layout.BYTE:  case Layout.BOOLEAN: return memget_b(pointer + offset);
+    }
+
+    /*
+     * A reference slot is 4 bytes wide with compressed oops.
+     */
+    return (Layout.REFERENCE == 4)
+      ? memget_i(pointer + offset) & 0xFFFFFFFFL
+      : memget_l(pointer + offset);
+  }
+
+  public static void memput_field(long pointer, Class clazz, int index, Object val) {
+    assert pointer != 0;
+
+    Layout layout = Layout.exact(clazz);
+
+    if (index < 0 || index >= layout.kinds.length) return;
+
+    long offset = layout.positions[index];
+
+    switch (layout.kinds[index]) {
+      case Layout.LONG:  case Layout.DOUBLE : memput(pointer + offset, (long)  val);  break;
+      case Layout.INT :  case Layout.FLOAT  : memput(pointer + offset, (int)   val);  break;
+      case Layout.CHAR:  case Layout.SHORT  : memput(pointer + offset, (short) val);  break;
+      case Layout.BYTE:  case Layout.BOOLEAN: memput(pointer + offset, (byte)  val);  break;
+
+      /*
+       * A reference slot is 4 bytes wide with compressed oops.
+       */
+      default:
+        if (Layout.REFERENCE == 4) memput(pointer + offset, (int) (long) val);
+        else                       memput(pointer + offset, (long) val);
+    }
+  }
+
+  /**
+   * Puts the Object, {@code val} at the address pointed to by {@code pointer}.
+   *
+   * <p>This is equivalent of dereferencing a pointer in C
+   *
+   * @param   pointer the memory location to put the specified Object
+   * @param   clazz   the Object to put
+   */
+  public static void memput(long pointer, Class clazz) {
+    memput(null, pointer, min_instance(clazz));
+  }
+
+  public static void memput(long pointer, Object o) {
+    memput(null, pointer, o);
+  }
+
+  public static void memput(Class parent, long pointer, Object o) {
+    assert pointer != 0;
+
+    Class clazz   = o.getClass();
+    Layout layout = Layout.exact(clazz);
+
+    /*
+     * Fields are put at their offsets on the heap, so an object nested
+     * in another, which has no header, starts HEADER bytes early. The
+     * contents of arrays and referenced objects follow the fields.
+     */
+    long start = (parent == null) ? pointer : pointer - Layout.HEADER;
+    long tail  = start + layout.size;
+
+    for (int i = 0; i < layout.kinds.length; i++) {
+      long obj_offset = layout.offsets[i];
+      long dest       = start + layout.positions[i];
+      int  kind       = layout.kinds[i];
+
+      switch (kind) {
+        case Layout.LONG:  case Layout.DOUBLE : memput(dest, unsafe().getLong(o, obj_offset));   continue;
+        case Layout.INT :  case Layout.FLOAT  : memput(dest, unsafe().getInt(o, obj_offset));    continue;
+        case Layout.CHAR:  case Layout.SHORT  : memput(dest, unsafe().getShort(o, obj_offset));  continue;
+        case Layout.BYTE:  case Layout.BOOLEAN: memput(dest, unsafe().getByte(o, obj_offset));   continue;
+      }
+
+      Object val = unsafe().getObject(o, obj_offset);
+
+      if (val == null) continue;
+
+      switch (kind) {
+        case Layout.A_LONG:    memset(tail, (long[])     val);    break;
+        case Layout.A_DOUBLE:  memset(tail, (double[])   val);    break;
+        case Layout.A_INT:     memset(tail, (int[])      val);    break;
+        case Layout.A_FLOAT:   memset(tail, (float[])    val);    break;
+        case Layout.A_CHAR:    memset(tail, (char[])     val);    break;
+        case Layout.A_SHORT:   memset(tail, (short[])    val);    break;
+        case Layout.A_BYTE:    memset(tail, (byte[])     val);    break;
+        case Layout.A_BOOLEAN: memset(tail, (boolean[])  val);    break;
+
+        default: memput(layout.types[i], tail, val); break;
+      }
+
+      if (kind < Layout.OBJECT)
+        tail += Layout.array_size(kind, val);
+
+      else
+        tail += sizeof(val) - Layout.HEADER;
+    }
+  }
+
+  /**
+   * Gets an instance of {@code clazz} from the copy put at the address
+   * pointed to by {@code pointer} by {@link #memput(long, Object)}.
+   *
+   * <p>Only classes whose instance fields are all primitives can be read
+   * back, as the copy keeps the contents of arrays and referenced objects
+   * but not their lengths or classes.
+   *
+   * @param   pointer the memory location to get the Object from
+   * @param   clazz   the class of the Object to get
+   * @return  a new instance of {@code clazz} holding the copied fields,
+   *          or null if {@code clazz} cannot be instantiated
+   * @throws  IllegalArgumentException if {@code clazz} has instance
+   *          fields which are not primitives, or is a record or hidden class
+   */
+  public static Object memget_object(long pointer, Class clazz) {
+    assert pointer != 0;
+
+    Layout layout = Layout.exact(clazz);
+    Object instance;
+
+    if (!layout.fixed)
+      throw new IllegalArgumentException(clazz.getName() + " has non-primitive instance fields");
+
+    try {
+      instance = unsafe().allocateInstance(clazz);
+
+    } catch (InstantiationException e) {
+      return null;
+    }
+
+    for (int i = 0; i < layout.kinds.length; i++) {
+      long obj_offset = layout.offsets[i];
+      long src        = pointer + layout.positions[i];
+
+      switch (layout.kinds[i]) {
+        case Layout.LONG:  case Layout.DOUBLE : unsafe().putLong(instance, obj_offset, memget_l(src));   break;
+        case Layout.INT :  case Layout.FLOAT  : unsafe().putInt(instance, obj_offset, memget_i(src));    break;
+        case Layout.CHAR:  case Layout.SHORT  : unsafe().putShort(instance, obj_offset, memget_s(src));  break;
+        case Layout.BYTE:  case Layout.BOOLEAN: unsafe().putByte(instance, obj_offset, memget_b(src));   break;
+      }
+    }
+
+    return instance;
+  }
+
+  ////////////////////////////////////////////////////////////////////////
+  // END TEST
+  ////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Gets a byte located at the address pointed to by {@code pointer}.
+   *
+   * <p>This is equivalent of dereferencing a pointer in C
+   *
+   * @param   pointer the memory location to get the byte from
+   */
+  public static byte memget_b(long pointer) {
+    assert pointer != 0;
+
+    return BACKEND.get_b(pointer);
+  }
+
+  /**
+   * Gets a short located at the address pointed to by {@code pointer}.
+   *
+   * <p>This is equivalent of dereferencing a pointer in C
+   *
+   * @param   pointer the memory location to get the short from
+   */
+  public static short memget_s(long pointer) {
+    assert pointer != 0;
+
+    return BACKEND.get_s(pointer);
+  }
+
+  /**
+   * Gets an int located at the address pointed to by {@code pointer}.
+   *
+   * <p>This is equivalent of dereferencing a pointer in C
+   *
+   * @param   pointer the memory location to get the int from
+   */
+  public static int memget_i(long pointer) {
+    assert pointer != 0;
+
+    return BACKEND.get_i(pointer);
+  }
+
+  /**
+   * Gets a long located at the address pointed to by {@code addr}.
+   *
+   * <p>This is equivalent of dereferencing a pointer in C
+   *
+   * @param   pointer the memory location to get the long from
+   */
+  public static long memget_l(long pointer) {
+    assert pointer != 0;
+
+    return BACKEND.get_l(pointer);
+  }
+
+  /**
+   * Gets an array of bytes located at the address pointed to by {@code pointer},
+   * ending at the first null byte.
+   *
+   * <p>The results are undefined if there is no null byte present.
+   *
+   * <p>This is equivalent of dereferencing a pointer in C.
+   *
+   * @param   pointer the memory location to get the bytes from.
+   */
+  public static byte[] memget_a(long pointer) {
+    assert pointer != 0;
+
+    return memget_a(pointer, (int) strlen(pointer));
+  }
+
+  /**
+   * Gets an array of bytes located at the address pointed to by {@code pointer},
+   * ending at the address {@code len} bytes from the specified address.
+   *
+   * <p>This is equivalent of dereferencing a pointer in C.
+   *
+   * @param   pointer the memory location to get the bytes from
+   * @param   len     the length of bytes to get from the specified address
+   */
+  public static byte[] memget_a(long pointer, int len) {
+    assert pointer != 0 && len >= 0;
+
+    byte[] result = new byte[len];
+
+    memget(pointer, result, 0, len);
+
+    return result;
+  }
+
+  /**
+   * Compares the first {@code len} bytes of the block of memory at {@code pointer1}
+   * to the first {@code len} bytes of the block of memory at {@code pointer2}, returning true
+   * if they all match or false if they do not.
+   *
+   * <p>This processes as many bytes as possible at a time for performance gain.
+   * For example, if 16 bytes were to be compared, it would process the bytes in 2 blocks
+   * of 8 instead of one at a time. When the Vector API is available, longer
+   * ranges are compared a whole vector at a time instead.
+   *
+   * @param   pointer1  the memory location to compare against
+   * @param   pointer2  the memory location to compare to
+   * @param   len       the length of bytes to compare
+   * @return  {@code true} if the bytes match, {@code false} if not.
+   */
+  public static boolean memcmp(long pointer1, long pointer2, long len) {
+    assert pointer1 != 0
+      &&   pointer2 != 0
+      &&   len      >= 0;
+
+    if (VECTOR != null && len >= VECTOR_MIN) return VECTOR.memcmp(pointer1, pointer2, len);
+
+    if ((len & 7) == 0) return memcmp_l(pointer1, pointer2, len);
+    if ((len & 3) == 0) return memcmp_i(pointer1, pointer2, len);
+    if ((len & 1) == 0) return memcmp_s(pointer1, pointer2, len);
+    else                return memcmp_b(pointer1, pointer2, len);
+  }
+
+  /**
+   * Lexicographically compares the first {@code len} bytes of the block of memory
+   * at {@code pointer1} to the first {@code len} bytes of the block of memory at
+   * {@code pointer2}, treating each byte as unsigned, as C's {@code memcmp} does.
+   *
+   * <p>This compares 8 bytes at a time. Once two words differ, they are put into
+   * big endian order so that a single unsigned comparison of the words orders
+   * them by their first differing byte.
+   *
+   * @param   pointer1  the memory location to compare against
+   * @param   pointer2  the memory location to compare to
+   * @param   len       the length of bytes to compare
+   * @return  a negative number, zero or a positive number if the bytes at
+   *          {@code pointer1} are less than, equal to or greater than
+   *          the bytes at {@code pointer2}
+   * @see     #memcmp(long, long, long)
+   */
+  public static int memcmp_lex(long pointer1, long pointer2, long len) {
+    assert pointer1 != 0
+      &&   pointer2 != 0
+      &&   len      >= 0;
+
+    long i = 0;
+
+    for (; i <= len - 8; i += 8) {
+      long word1 = BACKEND.get_l(pointer1 + i);
+      long word2 = BACKEND.get_l(pointer2 + i);
+
+      if (word1 != word2) {
+        if (LITTLE_ENDIAN) {
+          word1 = Long.reverseBytes(word1);
+          word2 = Long.reverseBytes(word2);
+        }
+
+        return Long.compareUnsigned(word1, word2);
+      }
+    }
+
+    for (; i < len; i++) {
+      int diff = (BACKEND.get_b(pointer1 + i) & 0xFF) - (BACKEND.get_b(pointer2 + i) & 0xFF);
+
+      if (diff != 0) return diff;
+    }
+
+    return 0;
+  }
+
+  /**
+   * Helper method for {@link #memcmp(long, long, long)}. Compares bytes one by
+   * one in the case that {@code len} passed to {@link #memcmp(long, long, long)} is odd
+   * or equal to 1.
+   *
+   * @param   pointer1   the memory location to compare against
+   * @param   pointer2   the memory location to compare to
+   * @param   len     the length of bytes to compare
+   * @return  {@code true} if the bytes match, {@code false} if not.
+   */
+  private static boolean memcmp_b(long pointer1, long pointer2, long len) {
+    for (long i = 0; i < len; i++)
+      if ((memget_b(pointer1 + i) ^ memget_b(pointer2 + i)) != 0)
+        return false;
+
+    return true;
+  }
+
+  /**
+   * Helper method for {@link #memcmp(long, long, long)}. Compares bytes 2 at a time
+   * in the case that {@code len} passed to {@link #memcmp(long, long, long)} is
+   * exactly divisible by 2.
+   *
+   * @param   pointer1   the memory location to compare against
+   * @param   pointer2   the memory location to compare to
+   * @param   len     the length of bytes to compare
+   * @return  {@code true} if the bytes match, {@code false} if not.
+   */
+  private static boolean memcmp_s(long pointer1, long pointer2, long len) {
+    for (long i = 0; i < len; i += 2)
+      if ((memget_s(pointer1 + i) ^ memget_s(pointer2 + i)) != 0)
+        return false;
+
+    return true;
+  }
+
+  /**
+   * Helper method for {@link #memcmp(long, long, long)}. Compares bytes 4 at a time
+   * in the case that {@code len} passed to {@link #memcmp(long, long, long)} is
+   * exactly divisible by 4.
+   *
+   * @param   pointer1   the memory location to compare against
+   * @param   pointer2   the memory location to compare to
+   * @param   len     the length of bytes to compare
+   * @return  {@code true} if the bytes match, {@code false} if not.
+   */
+  private static boolean memcmp_i(long pointer1, long pointer2, long len) {
+    for (long i = 0; i < len; i += 4)
+      if ((memget_i(pointer1 + i) ^ memget_i(pointer2 + i)) != 0)
+        return false;
+
+    return true;
+  }
+
+  /**
+   * Helper method for {@link #memcmp(long, long, long)}. Compares bytes 8 at a time
+   * in the case that {@code len} passed to {@link #memcmp(long, long, long)} is
+   * exactly divisible by 8.
+   *
+   * @param   pointer1   the memory location to compare against
+   * @param   pointer2   the memory location to compare to
+   * @param   len     the length of bytes to compare
+   * @return  {@code true} if the bytes match, {@code false} if not.
+   */
+  private static boolean memcmp_l(long pointer1, long pointer2, long len) {
+    for (long i = 0; i < len; i += 8)
+      if ((memget_l(pointer1 + i) ^ memget_l(pointer2 + i)) != 0)
+        return false;
+
+    return true;
+  }
+
+  /**
+   * Counts the number of set bits in the first {@code len} bytes
+   * of the block of memory at {@code pointer}.
+   *
+   * <p>This counts 8 bytes at a time, or a whole vector at a time
+   * when the Vector API is available.
+   *
+   * @param   pointer the memory location to start counting at
+   * @param   len     the length of bytes to count
+   * @return  the number of bits set to 1
+   */
+  public static long popcount(long pointer, long len) {
+    assert pointer != 0 && len >= 0;
+
+    if (VECTOR != null && len >= VECTOR_MIN) return VECTOR.popcount(pointer, len);
+
+    long count = 0;
+    long i     = 0;
+
+    for (; i <= len - 8; i += 8)
+      count += Long.bitCount(BACKEND.get_l(pointer + i));
+
+    for (; i < len; i++)
+      count += Integer.bitCount(BACKEND.get_b(pointer + i) & 0xFF);
+
+    return count;
+  }
+}
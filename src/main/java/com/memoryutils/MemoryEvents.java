@@ -0,0 +1,85 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR events recorded by {@link MemoryMetrics} for large allocations and frees.
+ * This class is only loaded once {@code jdk.jfr} is known to be present.
+ *
+ * @author  Jack Green (ja-green)
+ */
+final class MemoryEvents {
+
+  /*
+   * Suppresses default constructor, ensuring non-instantiability.
+   */
+  private MemoryEvents() {}
+
+  static void allocated(long pointer, long bytes) {
+    Allocation event = new Allocation();
+
+    if (event.isEnabled()) {
+      event.address = pointer;
+      event.bytes   = bytes;
+      event.commit();
+    }
+  }
+
+  static void freed(long pointer, long bytes) {
+    Free event = new Free();
+
+    if (event.isEnabled()) {
+      event.address = pointer;
+      event.bytes   = bytes;
+      event.commit();
+    }
+  }
+
+  @Name("com.memoryutils.Allocation")
+  @Label("Off-Heap Allocation")
+  @Category({ "Java Application", "Off-Heap Memory" })
+  @StackTrace
+  static final class Allocation extends Event {
+    @Label("Address")
+    long address;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+  }
+
+  @Name("com.memoryutils.Free")
+  @Label("Off-Heap Free")
+  @Category({ "Java Application", "Off-Heap Memory" })
+  @StackTrace
+  static final class Free extends Event {
+    @Label("Address")
+    long address;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+  }
+}
@@ -0,0 +1,220 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts the off-heap memory allocated and freed through {@link Memory}, publishing
+ * the counters through {@link OffHeapMemoryMXBean} and recording large allocations
+ * and frees as JFR events.
+ *
+ * <p>Metrics are off by default and cost nothing when off. They are enabled with the
+ * system property {@code -Dcom.memoryutils.metrics=true}, which is read once at startup.
+ * As {@code Unsafe.freeMemory} does not know the size of a block, every block is then
+ * preceded by a 16 byte header recording its size, keeping the pointers returned
+ * aligned to 16 bytes.
+ *
+ * <p>Allocations and frees of at least {@code -Dcom.memoryutils.metrics.large=N}
+ * bytes, 1 megabyte by default, are recorded as {@code com.memoryutils.Allocation}
+ * and {@code com.memoryutils.Free} events when a flight recording is running and
+ * the JVM supports JFR.
+ *
+ * @author  Jack Green (ja-green)
+ * @see     OffHeapMemoryMXBean
+ */
+public final class MemoryMetrics implements OffHeapMemoryMXBean {
+
+  /**
+   * The object name the MXBean is registered under.
+   */
+  public static final String NAME = "com.memoryutils:type=OffHeapMemory";
+
+  static final boolean ENABLED = Boolean.getBoolean("com.memoryutils.metrics");
+  static final long    HEADER  = 16;
+
+  private static final long    LARGE = Long.getLong("com.memoryutils.metrics.large", 1024 * 1024);
+  private static final boolean JFR;
+
+  private static final MemoryMetrics INSTANCE = new MemoryMetrics();
+
+  static {
+    boolean jfr;
+
+    try {
+      Class.forName("jdk.jfr.Event");
+      jfr = true;
+
+    } catch (ClassNotFoundException | LinkageError ex) {
+      jfr = false;
+    }
+
+    JFR = jfr;
+
+    if (ENABLED) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(NAME));
+
+      } catch (JMException ex) {
+        throw new ExceptionInInitializerError(ex);
+      }
+    }
+  }
+
+  private final LongAdder       allocated_bytes = new LongAdder();
+  private final LongAdder       freed_bytes     = new LongAdder();
+  private final LongAdder       allocations     = new LongAdder();
+  private final LongAdder       frees           = new LongAdder();
+  private final LongAdder       reallocs        = new LongAdder();
+  private final LongAccumulator largest         = new LongAccumulator(Math::max, 0);
+
+  /*
+   * The allocated bytes and time of the last rate sample, and the rate measured.
+   */
+  private long   rate_bytes;
+  private long   rate_time = System.nanoTime();
+  private double rate;
+
+  private MemoryMetrics() {}
+
+  /**
+   * Tests whether allocations are being counted.
+   *
+   * @return  {@code true} if metrics were enabled at startup
+   */
+  public static boolean enabled() {
+    return ENABLED;
+  }
+
+  /**
+   * Gets the counters, which are all zero if metrics are disabled.
+   *
+   * @return  the counters
+   */
+  public static OffHeapMemoryMXBean get() {
+    return INSTANCE;
+  }
+
+  @Override
+  public long getAllocatedBytes() {
+    return allocated_bytes.sum();
+  }
+
+  @Override
+  public long getFreedBytes() {
+    return freed_bytes.sum();
+  }
+
+  @Override
+  public long getLiveBytes() {
+    return allocated_bytes.sum() - freed_bytes.sum();
+  }
+
+  @Override
+  public long getAllocationCount() {
+    return allocations.sum();
+  }
+
+  @Override
+  public long getFreeCount() {
+    return frees.sum();
+  }
+
+  @Override
+  public long getReallocCount() {
+    return reallocs.sum();
+  }
+
+  @Override
+  public long getLargestAllocation() {
+    return largest.get();
+  }
+
+  @Override
+  public synchronized double getAllocationRate() {
+    long now   = System.nanoTime();
+    long bytes = allocated_bytes.sum();
+
+    if (now - rate_time >= 1_000_000_000L) {
+      rate       = (bytes - rate_bytes) * 1e9 / (now - rate_time);
+      rate_bytes = bytes;
+      rate_time  = now;
+    }
+
+    return rate;
+  }
+
+  /*
+   * Records the size of a newly allocated block in its header
+   * and gets the pointer to return to the caller.
+   */
+  static long allocated(long block, long bytes) {
+    Memory.memput(block, bytes);
+
+    INSTANCE.allocated_bytes.add(bytes);
+    INSTANCE.allocations.increment();
+    INSTANCE.largest.accumulate(bytes);
+
+    if (JFR && bytes >= LARGE) MemoryEvents.allocated(block + HEADER, bytes);
+
+    return block + HEADER;
+  }
+
+  /*
+   * Records a block about to be freed and gets
+   * the pointer to its header, to be freed.
+   */
+  static long freed(long pointer) {
+    long bytes = size(pointer);
+
+    INSTANCE.freed_bytes.add(bytes);
+    INSTANCE.frees.increment();
+
+    if (JFR && bytes >= LARGE) MemoryEvents.freed(pointer, bytes);
+
+    return pointer - HEADER;
+  }
+
+  /*
+   * Records a block re-sized from old_bytes and gets
+   * the pointer to return to the caller.
+   */
+  static long reallocated(long block, long old_bytes, long bytes) {
+    Memory.memput(block, bytes);
+
+    INSTANCE.allocated_bytes.add(bytes);
+    INSTANCE.freed_bytes.add(old_bytes);
+    INSTANCE.reallocs.increment();
+    INSTANCE.largest.accumulate(bytes);
+
+    if (JFR && bytes >= LARGE) MemoryEvents.allocated(block + HEADER, bytes);
+
+    return block + HEADER;
+  }
+
+  /*
+   * Gets the size of the block at pointer from its header.
+   */
+  static long size(long pointer) {
+    return Memory.memget_l(pointer - HEADER);
+  }
+}
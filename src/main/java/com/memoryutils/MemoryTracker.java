@@ -0,0 +1,186 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks every block of memory allocated by {@link Memory#malloc(long)},
+ * {@link Memory#calloc(long)} and {@link Memory#realloc(long, long)} which has not yet
+ * been released using {@link Memory#free(long)}, to find leaks and invalid frees.
+ *
+ * <p>Tracking is off by default and costs nothing when off. It is enabled with the
+ * system property {@code -Dcom.memoryutils.track=true}, which is read once at startup.
+ * When enabled, freeing or re-sizing a pointer which was never allocated, or which has
+ * already been freed, throws an {@code AssertionError} before the memory is touched,
+ * whether or not assertions are enabled.
+ *
+ * <p>Capturing the stack of every allocation is too slow to leave on in production,
+ * so with {@code -Dcom.memoryutils.track.sample=N} the stack of one in every
+ * {@code N} allocations, chosen at random, is recorded and shown in
+ * {@link #report()}. The default of 0 records no stacks.
+ *
+ * @author  Jack Green (ja-green)
+ * @see     Memory#malloc(long)
+ */
+public final class MemoryTracker {
+  static final boolean ENABLED = Boolean.getBoolean("com.memoryutils.track");
+
+  private static final int SAMPLE = Integer.getInteger("com.memoryutils.track.sample", 0);
+
+  private static final ConcurrentHashMap<Long, Block> LIVE = new ConcurrentHashMap<>();
+
+  private static final AtomicLong LIVE_BYTES = new AtomicLong();
+
+  /*
+   * Suppresses default constructor, ensuring non-instantiability.
+   */
+  private MemoryTracker() {}
+
+  /**
+   * Tests whether allocations are being tracked.
+   *
+   * @return  {@code true} if tracking was enabled at startup
+   */
+  public static boolean enabled() {
+    return ENABLED;
+  }
+
+  /**
+   * Gets the number of bytes allocated and not yet freed.
+   *
+   * @return  the number of live bytes, or 0 if tracking is disabled
+   */
+  public static long live_bytes() {
+    return LIVE_BYTES.get();
+  }
+
+  /**
+   * Gets the number of blocks allocated and not yet freed.
+   *
+   * @return  the number of live blocks, or 0 if tracking is disabled
+   */
+  public static long live_count() {
+    return LIVE.mappingCount();
+  }
+
+  /**
+   * Describes the blocks allocated and not yet freed, grouping blocks
+   * allocated from the same stack, largest total first. Blocks whose
+   * stack was not sampled are counted in a single group.
+   *
+   * @return  a human readable report of the live blocks
+   */
+  public static String report() {
+    Map<List<StackTraceElement>, long[]> groups = new HashMap<>();
+
+    for (Block block : LIVE.values()) {
+      List<StackTraceElement> stack = (block.stack == null)
+        ? null
+        : Arrays.asList(block.stack.getStackTrace());
+
+      long[] totals = groups.get(stack);
+      if (totals == null) groups.put(stack, totals = new long[2]);
+
+      totals[0]++;
+      totals[1] += block.bytes;
+    }
+
+    List<Map.Entry<List<StackTraceElement>, long[]>> entries = new ArrayList<>(groups.entrySet());
+    entries.sort((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+
+    StringBuilder sb = new StringBuilder()
+      .append(live_count()).append(" live blocks, ")
+      .append(live_bytes()).append(" bytes\n");
+
+    for (Map.Entry<List<StackTraceElement>, long[]> entry : entries) {
+      sb.append('\n')
+        .append(entry.getValue()[0]).append(" blocks, ")
+        .append(entry.getValue()[1]).append(" bytes");
+
+      if (entry.getKey() == null) {
+        sb.append(", allocation stack not sampled\n");
+        continue;
+      }
+
+      sb.append(", allocated at\n");
+
+      for (StackTraceElement element : entry.getKey())
+        if (!element.getClassName().equals(MemoryTracker.class.getName()))
+          sb.append("\tat ").append(element).append('\n');
+    }
+
+    return sb.toString();
+  }
+
+  /*
+   * Records a newly allocated block.
+   */
+  static void allocated(long pointer, long bytes) {
+    Throwable stack = (SAMPLE > 0 && ThreadLocalRandom.current().nextInt(SAMPLE) == 0)
+      ? new Throwable()
+      : null;
+
+    LIVE.put(pointer, new Block(bytes, stack));
+    LIVE_BYTES.addAndGet(bytes);
+  }
+
+  /*
+   * Throws if there is no record of a block about to be re-sized,
+   * leaving the record in place.
+   */
+  static void check(long pointer) {
+    if (!LIVE.containsKey(pointer))
+      throw new AssertionError("realloc of freed or unknown pointer 0x" + Long.toHexString(pointer));
+  }
+
+  /*
+   * Removes the record of a block which has been re-sized or is about
+   * to be freed, throwing if there is none.
+   */
+  static void freed(long pointer) {
+    Block block = LIVE.remove(pointer);
+
+    if (block == null)
+      throw new AssertionError("double free or free of unknown pointer 0x" + Long.toHexString(pointer));
+
+    LIVE_BYTES.addAndGet(-block.bytes);
+  }
+
+  /*
+   * The size of a live block, and the throwable created when it was
+   * allocated if its stack was sampled. The stack trace elements of the
+   * throwable are only built when the report is written.
+   */
+  private static final class Block {
+    final long      bytes;
+    final Throwable stack;
+
+    Block(long bytes, Throwable stack) {
+      this.bytes = bytes;
+      this.stack = stack;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A {@link RingBuffer} for any number of producer threads and one consumer thread.
+ *
+ * <p>Producers reserve slots by a compare and set of the shared producer counter,
+ * so a batch of slots costs a single atomic instruction. As producers may commit
+ * out of order, each slot is preceded by an 8 byte word to which the producer
+ * writes the slot's sequence plus one, with an ordered write, once its message
+ * is written. The consumer reads messages only as far as the first slot not yet
+ * published.
+ *
+ * @author  Jack Green (ja-green)
+ * @see     SpscRingBuffer
+ */
+public final class MpscRingBuffer extends RingBuffer {
+
+  /**
+   * Creates a buffer holding {@code capacity} messages of {@code message_size} bytes.
+   *
+   * @param   capacity     the number of messages, a power of two
+   * @param   message_size the size in bytes of each message
+   */
+  public MpscRingBuffer(long capacity, int message_size) {
+    super(capacity, message_size, 8);
+  }
+
+  @Override
+  public long claim(int count) {
+    assert count >= 0 && count <= capacity;
+
+    for (;;) {
+      long tail = Memory.get_acquire_l(base + TAIL);
+      long head = free_head(tail, count);
+
+      if (tail + count - head > capacity) return -1;
+
+      if (Memory.cas(base + TAIL, tail, tail + count))
+        return tail;
+    }
+  }
+
+  @Override
+  public void commit(long sequence, int count) {
+    for (long s = sequence; s < sequence + count; s++)
+      Memory.put_ordered(pointer(s) - 8, s + 1);
+  }
+
+  @Override
+  public int available(int max) {
+    long head = Memory.memget_l(base + HEAD);
+    int  n    = 0;
+
+    while (n < max && Memory.get_acquire_l(pointer(head + n) - 8) == head + n + 1)
+      n++;
+
+    return n;
+  }
+}
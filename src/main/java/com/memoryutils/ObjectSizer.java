@@ -0,0 +1,168 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+/**
+ * Measures the memory retained on the heap by an object graph, for
+ * {@link Memory#sizeof_deep(Object)}.
+ *
+ * <p>The graph is walked iteratively from the root using an explicit stack,
+ * so deep graphs cannot overflow the thread's stack, and every object is
+ * marked in an {@link IdentitySet} so that shared objects and cycles are
+ * counted once.
+ *
+ * <p>The size of an instance is the size of its class's {@link Layout}, the
+ * end of its last field across the class and all of its superclasses, rounded
+ * up to the object alignment. The size of an array is its base offset plus its
+ * elements, the width of a reference being 4 bytes with compressed oops and
+ * 8 bytes without. The shape of each class is computed once and cached using
+ * a {@link ClassValue}.
+ *
+ * <p>{@code Class} objects are not counted or walked into, as they are
+ * shared by every instance of the class and are not retained by any of them.
+ *
+ * @author  Jack Green (ja-green)
+ */
+final class ObjectSizer {
+
+  private static final long[] NONE = new long[0];
+
+  private static final ClassValue<Shape> SHAPES = new ClassValue<Shape>() {
+    @Override protected Shape computeValue(Class<?> clazz) { return new Shape(clazz); }
+  };
+
+  /*
+   * Suppresses default constructor, ensuring non-instantiability.
+   */
+  private ObjectSizer() {}
+
+  /*
+   * The size of an instance of a class and the offsets of its reference
+   * fields, or for an array class the base offset and element width. Where
+   * the offsets are unavailable, as for records and hidden classes, the
+   * indices of the fields in the class's layout are held instead and the
+   * fields are read through the layout.
+   */
+  static final class Shape {
+    final long    size;
+    final long[]  references;
+    final Layout  reflected;
+    final long    base;
+    final long    scale;
+    final boolean array;
+    final boolean reference_array;
+
+    private Shape(Class<?> clazz) {
+      this.array           = clazz.isArray();
+      this.reference_array = array && !clazz.getComponentType().isPrimitive();
+
+      if (array) {
+        this.base       = Memory.unsafe().arrayBaseOffset(clazz);
+        this.scale      = Memory.unsafe().arrayIndexScale(clazz);
+        this.size       = 0;
+        this.references = NONE;
+        this.reflected  = null;
+
+        return;
+      }
+
+      Layout layout = Layout.of(clazz);
+      int    count  = 0;
+
+      for (int kind : layout.kinds)
+        if (kind >= Layout.A_LONG) count++;
+
+      this.base       = 0;
+      this.scale      = 0;
+      this.size       = layout.size;
+      this.references = new long[count];
+      this.reflected  = layout.exact ? null : layout;
+
+      for (int i = 0, j = 0; i < layout.kinds.length; i++)
+        if (layout.kinds[i] >= Layout.A_LONG)
+          references[j++] = layout.exact ? layout.offsets[i] : i;
+    }
+
+    /*
+     * Gets the reference field j of o, an instance of this shape's class.
+     */
+    Object reference(Object o, int j) {
+      return (reflected == null)
+        ? Memory.unsafe().getObject(o, references[j])
+        : reflected.reference(o, (int) references[j]);
+    }
+
+    /*
+     * Gets the size of o, an instance of this shape's class.
+     */
+    long size(Object o) {
+      return array ? Layout.align(base + scale * Array.getLength(o)) : size;
+    }
+  }
+
+  static Shape shape(Class<?> clazz) {
+    return SHAPES.get(clazz);
+  }
+
+  /*
+   * Gets the total size of root and of every object reachable from it.
+   */
+  static long size(Object root) {
+    if (root == null) return 0;
+
+    IdentitySet visited = new IdentitySet(64);
+    Object[]    stack   = new Object[64];
+    int         top     = 0;
+    long        total   = 0;
+
+    visited.add(root);
+    stack[top++] = root;
+
+    while (top > 0) {
+      Object o = stack[--top];
+      stack[top] = null;
+
+      Shape shape = shape(o.getClass());
+
+      total += shape.size(o);
+
+      if (shape.reference_array) {
+        for (Object e : (Object[]) o) {
+          if (e == null || e instanceof Class || !visited.add(e)) continue;
+
+          if (top == stack.length) stack = Arrays.copyOf(stack, top << 1);
+          stack[top++] = e;
+        }
+
+      } else {
+        for (int j = 0; j < shape.references.length; j++) {
+          Object e = shape.reference(o, j);
+
+          if (e == null || e instanceof Class || !visited.add(e)) continue;
+
+          if (top == stack.length) stack = Arrays.copyOf(stack, top << 1);
+          stack[top++] = e;
+        }
+      }
+    }
+
+    return total;
+  }
+}
@@ -0,0 +1,133 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Base class of the fixed length arrays of primitives stored in off-heap memory,
+ * {@link LongArray}, {@link IntArray}, {@link DoubleArray} and {@link ByteArray}.
+ *
+ * <p>Unlike Java arrays these are indexed by {@code long}, so a single array
+ * can be larger than 2 gigabytes. Elements are stored contiguously from
+ * {@link #pointer()}, so the array can also be used with every method of
+ * {@link Memory}.
+ *
+ * <p>Arrays are allocated using {@link Memory#calloc(long)}, so every element
+ * is initially zero, and must be released using {@link #close()}. Like the
+ * rest of this library, index checks use only the assert keyword.
+ *
+ * @author  Jack Green (ja-green)
+ */
+public abstract class OffHeapArray implements AutoCloseable {
+  final long pointer;
+  final long length;
+  final int  shift;
+
+  OffHeapArray(long length, int shift) {
+    assert length >= 0;
+
+    this.pointer = Memory.calloc(Math.max(1, length << shift));
+    this.length  = length;
+    this.shift   = shift;
+  }
+
+  /**
+   * Gets the pointer to the first element of this array.
+   *
+   * @return  the pointer to the first element
+   */
+  public final long pointer() {
+    return pointer;
+  }
+
+  /**
+   * Gets the number of elements in this array.
+   *
+   * @return  the number of elements
+   */
+  public final long length() {
+    return length;
+  }
+
+  /**
+   * Gets the number of bytes occupied by the elements of this array.
+   *
+   * @return  the size of this array in bytes
+   */
+  public final long bytes() {
+    return length << shift;
+  }
+
+  /**
+   * Sets every element of this array to zero.
+   */
+  public final void clear() {
+    Memory.memset(pointer, (byte) 0, length << shift);
+  }
+
+  /**
+   * Frees the off-heap memory held by this array. The array
+   * must not be used after calling this method.
+   */
+  @Override
+  public final void close() {
+    Memory.free(pointer);
+  }
+
+  /*
+   * Gets the address of the element at index.
+   */
+  final long address(long index) {
+    assert index >= 0 && index < length;
+
+    return pointer + (index << shift);
+  }
+
+  /*
+   * Asserts that count elements starting at index lie within this array.
+   */
+  final void check(long index, long count) {
+    assert index >= 0 && count >= 0 && index + count <= length;
+  }
+
+  /*
+   * Having already set the first element, fills the rest of the array
+   * by copying the filled part onto the unfilled part, doubling the
+   * amount filled each time.
+   */
+  final void fill_from_first() {
+    long total  = length << shift;
+    long filled = 1L << shift;
+
+    while (filled < total) {
+      long n = Math.min(filled, total - filled);
+
+      Memory.memcpy(pointer + filled, pointer, n);
+      filled += n;
+    }
+  }
+
+  /*
+   * Copies count elements from src_index of this array to dest_index of
+   * dest, which must have elements of the same width. The ranges may overlap.
+   */
+  final void copy(long src_index, OffHeapArray dest, long dest_index, long count) {
+    check(src_index, count);
+    dest.check(dest_index, count);
+
+    Memory.memmove(dest.pointer + (dest_index << shift), pointer + (src_index << shift), count << shift);
+  }
+}
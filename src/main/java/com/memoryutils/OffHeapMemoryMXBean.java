@@ -0,0 +1,73 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/**
+ * Management interface exposing the usage of off-heap memory allocated by
+ * {@link Memory#malloc(long)}, {@link Memory#calloc(long)} and
+ * {@link Memory#realloc(long, long)}, registered with the platform MBean server as
+ * {@value MemoryMetrics#NAME} when metrics are enabled.
+ *
+ * <p>Attributes follow the JavaBeans naming required of MXBeans.
+ *
+ * @author  Jack Green (ja-green)
+ * @see     MemoryMetrics
+ */
+public interface OffHeapMemoryMXBean {
+
+  /**
+   * @return  the total number of bytes ever allocated
+   */
+  long getAllocatedBytes();
+
+  /**
+   * @return  the total number of bytes ever freed
+   */
+  long getFreedBytes();
+
+  /**
+   * @return  the number of bytes allocated and not yet freed
+   */
+  long getLiveBytes();
+
+  /**
+   * @return  the number of calls to malloc and calloc
+   */
+  long getAllocationCount();
+
+  /**
+   * @return  the number of calls to free
+   */
+  long getFreeCount();
+
+  /**
+   * @return  the number of calls to realloc
+   */
+  long getReallocCount();
+
+  /**
+   * @return  the size in bytes of the largest block ever allocated
+   */
+  long getLargestAllocation();
+
+  /**
+   * @return  the number of bytes allocated per second, measured
+   *          over at least the last second
+   */
+  double getAllocationRate();
+}
@@ -0,0 +1,183 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Measures the memory retained on the heap by an object graph using every
+ * thread of a {@link ForkJoinPool}, for {@link Memory#sizeof_parallel(Object)}.
+ *
+ * <p>Each task walks the graph from a stack of objects like {@link ObjectSizer},
+ * marking objects in a {@link ConcurrentIdentitySet} shared by every task so
+ * that each object is counted by exactly one of them. When a task's stack grows
+ * past twice {@link #BATCH} objects while none of its forked tasks are waiting
+ * to be stolen, {@link #BATCH} objects are forked off as a new task for an idle
+ * thread to steal. Handing off a fixed number of objects keeps the copying
+ * bounded however deep the stack grows. Reference
+ * arrays longer than {@link #BATCH} are split into ranges, each walked by its
+ * own task, so that one large array does not keep a single thread busy.
+ *
+ * <p>Each task counts the objects of each class locally and adds its counts to
+ * the shared histogram once when it finishes.
+ *
+ * @author  Jack Green (ja-green)
+ */
+final class ParallelSizer extends RecursiveAction {
+  private static final int BATCH = 1024;
+
+  private final ConcurrentIdentitySet                visited;
+  private final ConcurrentHashMap<Class<?>, long[]>  histogram;
+
+  private Object[] stack;
+  private int      top;
+
+  /*
+   * A range of a reference array to walk before the stack, or null.
+   */
+  private Object[] array;
+  private int      from;
+  private int      to;
+
+  private ParallelSizer(ConcurrentIdentitySet visited, ConcurrentHashMap<Class<?>, long[]> histogram,
+                        Object[] stack, int top, Object[] array, int from, int to) {
+    this.visited   = visited;
+    this.histogram = histogram;
+    this.stack     = stack;
+    this.top       = top;
+    this.array     = array;
+    this.from      = from;
+    this.to        = to;
+  }
+
+  /*
+   * Sizes root and every object reachable from it using the threads of pool.
+   */
+  static HeapHistogram size(Object root, ForkJoinPool pool) {
+    ConcurrentHashMap<Class<?>, long[]> histogram = new ConcurrentHashMap<>();
+
+    if (root != null) {
+      ConcurrentIdentitySet visited = new ConcurrentIdentitySet(pool.getParallelism());
+
+      visited.add(root);
+      pool.invoke(new ParallelSizer(visited, histogram, new Object[] { root }, 1, null, 0, 0));
+    }
+
+    return new HeapHistogram(histogram);
+  }
+
+  @Override
+  protected void compute() {
+    List<ParallelSizer>   forked = new ArrayList<>();
+    Map<Class<?>, long[]> counts = new HashMap<>();
+
+    Class<?> last        = null;
+    long[]   last_counts = null;
+
+    if (array != null) {
+      while (to - from > BATCH) {
+        int middle = (from + to) >>> 1;
+
+        forked.add(spawn(new ParallelSizer(visited, histogram, new Object[BATCH], 0, array, middle, to)));
+        to = middle;
+      }
+
+      for (int i = from; i < to; i++)
+        push(array[i]);
+
+      array = null;
+    }
+
+    while (top > 0) {
+      Object o = stack[--top];
+      stack[top] = null;
+
+      Class<?>          clazz = o.getClass();
+      ObjectSizer.Shape shape = ObjectSizer.shape(clazz);
+
+      /*
+       * Consecutive objects are often of the same class,
+       * so the last class's counts are kept at hand.
+       */
+      if (clazz != last) {
+        last_counts = counts.get(clazz);
+        if (last_counts == null) counts.put(clazz, last_counts = new long[2]);
+        last = clazz;
+      }
+
+      last_counts[0]++;
+      last_counts[1] += shape.size(o);
+
+      if (shape.reference_array) {
+        Object[] elements = (Object[]) o;
+
+        if (elements.length > BATCH) {
+          forked.add(spawn(new ParallelSizer(visited, histogram, new Object[BATCH], 0, elements, 0, elements.length)));
+
+        } else {
+          for (Object e : elements)
+            push(e);
+        }
+
+      } else {
+        for (int j = 0; j < shape.references.length; j++)
+          push(shape.reference(o, j));
+      }
+
+      if (top > BATCH * 2 && getQueuedTaskCount() == 0) {
+        Object[] stolen = Arrays.copyOfRange(stack, top - BATCH, top + BATCH);
+
+        Arrays.fill(stack, top - BATCH, top, null);
+        top -= BATCH;
+
+        forked.add(spawn(new ParallelSizer(visited, histogram, stolen, BATCH, null, 0, 0)));
+      }
+    }
+
+    for (Map.Entry<Class<?>, long[]> entry : counts.entrySet()) {
+      histogram.merge(entry.getKey(), entry.getValue(), (a, b) -> {
+        a[0] += b[0];
+        a[1] += b[1];
+
+        return a;
+      });
+    }
+
+    for (ParallelSizer task : forked)
+      task.join();
+  }
+
+  private void push(Object o) {
+    if (o == null || o instanceof Class || !visited.add(o)) return;
+
+    if (top == stack.length) stack = Arrays.copyOf(stack, top << 1);
+    stack[top++] = o;
+  }
+
+  private static ParallelSizer spawn(ParallelSizer task) {
+    task.fork();
+
+    return task;
+  }
+}
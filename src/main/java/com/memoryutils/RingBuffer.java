@@ -0,0 +1,224 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A bounded queue of fixed size messages held in off-heap memory, used to pass
+ * messages between threads without taking locks or allocating objects.
+ *
+ * <p>Messages are numbered by a sequence which increases by one for each message
+ * and never wraps, the message with sequence {@code s} being stored in slot
+ * {@code s & (capacity - 1)}. Producers reserve slots with {@link #claim(int)},
+ * write the messages in place at {@link #pointer(long)} and publish them with
+ * {@link #commit(long, int)}. The consumer reads up to {@link #available(int)}
+ * messages starting at {@link #head()} in place and then hands the slots back
+ * to the producers with {@link #release(int)}. Claiming, reading and releasing
+ * several messages at once costs the same as a single message.
+ *
+ * <p>{@link #offer(long)} and {@link #poll(long)} copy a single message in and
+ * out for callers which do not need batches.
+ *
+ * <p>No method blocks, a producer which finds the buffer full or a consumer which
+ * finds it empty must retry or back off as it sees fit.
+ *
+ * <p>The counters of the producers and of the consumer are each kept on their own
+ * cache line, along with a cached copy of the other side's counter, so the two
+ * sides only touch each other's lines when the cached copy runs out.
+ *
+ * <p>The buffer must be released using {@link #close()}.
+ *
+ * @author  Jack Green (ja-green)
+ * @see     SpscRingBuffer
+ * @see     MpscRingBuffer
+ */
+public abstract class RingBuffer implements AutoCloseable {
+
+  /*
+   * Counters are spaced two cache lines apart, as adjacent line
+   * prefetching on x86 pulls lines in pairs.
+   */
+  static final long LINE        = 128;
+
+  static final long TAIL        = 0;
+  static final long HEAD_CACHE  = 8;
+  static final long HEAD        = LINE;
+  static final long TAIL_CACHE  = LINE + 8;
+  static final long DATA        = LINE * 2;
+
+  final long base;
+  final long capacity;
+  final long mask;
+  final int  message_size;
+  final long slot_size;
+  final long slot_offset;
+
+  RingBuffer(long capacity, int message_size, long slot_offset) {
+    assert capacity > 0 && (capacity & (capacity - 1)) == 0;
+    assert message_size > 0;
+
+    this.capacity     = capacity;
+    this.mask         = capacity - 1;
+    this.message_size = message_size;
+    this.slot_offset  = slot_offset;
+    this.slot_size    = (slot_offset + message_size + 7) & ~7L;
+
+    long bytes = DATA + capacity * slot_size;
+
+    this.base = Memory.calloc_aligned(bytes, LINE);
+  }
+
+  /**
+   * Gets the number of messages this buffer can hold.
+   *
+   * @return  the capacity in messages
+   */
+  public final long capacity() {
+    return capacity;
+  }
+
+  /**
+   * Gets the size in bytes of each message.
+   *
+   * @return  the message size in bytes
+   */
+  public final int message_size() {
+    return message_size;
+  }
+
+  /**
+   * Gets the pointer to the message with sequence {@code sequence}.
+   *
+   * @param   sequence the sequence of the message
+   * @return  a pointer to the first byte of the message
+   */
+  public final long pointer(long sequence) {
+    return base + DATA + (sequence & mask) * slot_size + slot_offset;
+  }
+
+  /**
+   * Reserves {@code count} consecutive slots for writing.
+   *
+   * <p>Every claimed slot must be published using {@link #commit(long, int)}
+   * once written.
+   *
+   * @param   count the number of slots to reserve
+   * @return  the sequence of the first slot reserved, or -1 if there
+   *          are fewer than {@code count} free slots
+   */
+  public abstract long claim(int count);
+
+  /**
+   * Publishes {@code count} messages, starting at {@code sequence},
+   * to the consumer.
+   *
+   * @param   sequence the sequence returned by {@link #claim(int)}
+   * @param   count    the number of slots claimed
+   */
+  public abstract void commit(long sequence, int count);
+
+  /**
+   * Gets the sequence of the next message to be read by the consumer.
+   *
+   * @return  the sequence of the next message
+   */
+  public final long head() {
+    return Memory.memget_l(base + HEAD);
+  }
+
+  /**
+   * Gets the number of published messages ready to be read,
+   * starting at {@link #head()}.
+   *
+   * @param   max the largest number of messages to return
+   * @return  the number of messages ready, at most {@code max}
+   */
+  public abstract int available(int max);
+
+  /**
+   * Hands {@code count} read messages, starting at {@link #head()},
+   * back to the producers.
+   *
+   * @param   count the number of messages read
+   */
+  public final void release(int count) {
+    long head = Memory.memget_l(base + HEAD);
+
+    assert count >= 0 && head + count <= Memory.get_acquire_l(base + TAIL);
+
+    Memory.put_ordered(base + HEAD, head + count);
+  }
+
+  /**
+   * Copies a single message of {@link #message_size()}
+   * bytes from {@code src} into this buffer.
+   *
+   * @param   src a pointer to the message
+   * @return  {@code true} if the message was added, or
+   *          {@code false} if the buffer is full
+   */
+  public final boolean offer(long src) {
+    long sequence = claim(1);
+
+    if (sequence < 0) return false;
+
+    Memory.memcpy(pointer(sequence), src, message_size);
+    commit(sequence, 1);
+
+    return true;
+  }
+
+  /**
+   * Copies the next message out of this buffer
+   * into {@code dest}, removing it.
+   *
+   * @param   dest a pointer to at least {@link #message_size()} bytes
+   * @return  {@code true} if a message was copied, or
+   *          {@code false} if the buffer is empty
+   */
+  public final boolean poll(long dest) {
+    if (available(1) == 0) return false;
+
+    Memory.memcpy(dest, pointer(head()), message_size);
+    release(1);
+
+    return true;
+  }
+
+  /**
+   * Frees the off-heap memory held by this buffer. The buffer
+   * must not be used after calling this method.
+   */
+  @Override
+  public final void close() {
+    Memory.free_aligned(base);
+  }
+
+  /*
+   * Gets the consumer's head, reading it from the consumer's cache
+   * line only when the cached copy shows fewer than count free slots.
+   */
+  final long free_head(long tail, int count) {
+    long head = Memory.memget_l(base + HEAD_CACHE);
+
+    if (tail + count - head > capacity) {
+      head = Memory.get_acquire_l(base + HEAD);
+      Memory.memput(base + HEAD_CACHE, head);
+    }
+
+    return head;
+  }
+}
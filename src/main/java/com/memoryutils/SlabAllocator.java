@@ -0,0 +1,289 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A size-class slab allocator for small blocks of off-heap memory, designed
+ * as a drop in alternative to {@link Memory#malloc(long)}, {@link Memory#calloc(long)}
+ * and {@link Memory#free(long)}.
+ *
+ * <p>Requests of up to {@value #MAX_SMALL} bytes are rounded up to one of a fixed
+ * set of size classes and served from slabs, large blocks of memory carved into
+ * equally sized blocks. Every thread keeps its own free list per size class, so
+ * allocating and freeing a small block is a handful of plain memory operations
+ * and never takes a lock or calls into the native allocator.
+ *
+ * <p>When a thread frees more blocks than it allocates, batches of blocks are
+ * handed to a global depot which other threads take from before carving new
+ * slabs. The depot is a lock-free stack per size class.
+ *
+ * <p>Requests larger than {@value #MAX_SMALL} bytes are passed straight through to
+ * {@link Memory#malloc(long)}.
+ *
+ * <p>Every block is preceded by an 8 byte header recording its size class, so
+ * pointers returned are aligned to 8 bytes and must only be released using
+ * {@link #free(long)}. Slabs are never returned to the system, freed blocks
+ * are kept for reuse. Blocks cached by a thread which terminates are not
+ * recovered.
+ *
+ * @author  Jack Green (ja-green)
+ * @see     Memory#malloc(long)
+ */
+public final class SlabAllocator {
+
+  /**
+   * The largest request, in bytes, served from a slab.
+   */
+  public static final int MAX_SMALL = 256;
+
+  private static final int[] CLASS_SIZES = { 16, 32, 48, 64, 96, 128, 192, 256 };
+  private static final int   CLASS_CNT   = CLASS_SIZES.length;
+
+  private static final long  HEADER      = 8;
+  private static final long  LARGE       = -1;
+  private static final long  SLAB_SIZE   = 64 * Memory.KILOBYTE;
+
+  /*
+   * A thread moves BATCH blocks to the depot once it caches more than
+   * 2 * BATCH blocks of a class, and takes BATCH blocks back when empty.
+   */
+  private static final int   BATCH       = 64;
+
+  /*
+   * Maps (bytes + 15) >> 4 to a size class index.
+   */
+  private static final byte[] CLASS_INDEX = new byte[(MAX_SMALL >> 4) + 1];
+
+  private static final Depot[] DEPOTS = new Depot[CLASS_CNT];
+
+  private static final ThreadLocal<Cache> CACHE = new ThreadLocal<Cache>() {
+    @Override protected Cache initialValue() { return new Cache(); }
+  };
+
+  static {
+    for (int i = 0, c = 0; i < CLASS_INDEX.length; i++) {
+      while (CLASS_SIZES[c] < i << 4) c++;
+      CLASS_INDEX[i] = (byte) c;
+    }
+
+    for (int i = 0; i < CLASS_CNT; i++)
+      DEPOTS[i] = new Depot();
+  }
+
+  /*
+   * Suppresses default constructor, ensuring non-instantiability.
+   */
+  private SlabAllocator() {}
+
+  /**
+   * Allocates {@code bytes} bytes to off-heap memory.
+   * Returns the lowest byte in the allocated memory block
+   * which is aligned to 8 bytes.
+   *
+   * <p>The allocated bytes will be uninitialised and
+   * therefore will generally be garbage.
+   *
+   * <p>The bytes allocated here must be released using
+   * {@link #free(long)}, not {@link Memory#free(long)}.
+   *
+   * @param   bytes the size (in bytes) to allocate
+   * @return  a pointer to the lowest byte
+   *          in the allocated memory block
+   * @see     #calloc(long)
+   * @see     #free(long)
+   */
+  public static long malloc(long bytes) {
+    assert bytes >= 0;
+
+    if (bytes > MAX_SMALL) {
+      long block = Memory.malloc(bytes + HEADER);
+
+      Memory.memput(block, LARGE);
+
+      return block + HEADER;
+    }
+
+    int   sc    = CLASS_INDEX[(int) (bytes + 15) >> 4];
+    Cache cache = CACHE.get();
+    long  block = cache.heads[sc];
+
+    if (block == 0) block = cache.refill(sc);
+
+    cache.heads[sc] = Memory.memget_l(block);
+    cache.counts[sc]--;
+
+    Memory.memput(block, (long) sc);
+
+    return block + HEADER;
+  }
+
+  /**
+   * Allocates {@code bytes} bytes to off-heap memory,
+   * initialised to null bytes.
+   *
+   * @param   bytes the size (in bytes) to allocate
+   * @return  a pointer to the lowest byte
+   *          in the allocated memory block
+   * @see     #malloc(long)
+   * @see     #free(long)
+   */
+  public static long calloc(long bytes) {
+    long pointer = malloc(bytes);
+
+    Memory.memset(pointer, (byte) 0, bytes);
+
+    return pointer;
+  }
+
+  /**
+   * Frees the memory allocated at the address {@code pointer} as
+   * allocated by {@link #malloc(long)} or {@link #calloc(long)}.
+   *
+   * <p>Small blocks are returned to the calling thread's cache,
+   * which need not be the thread that allocated them.
+   *
+   * <p>If a null pointer is passed as {@code pointer},
+   * no action will be performed.
+   *
+   * @param pointer the pointer to a block of allocated memory to free.
+   * @see   #malloc(long)
+   * @see   #calloc(long)
+   */
+  public static void free(long pointer) {
+    if (pointer == 0) return;
+
+    long block = pointer - HEADER;
+    long sc    = Memory.memget_l(block);
+
+    if (sc == LARGE) {
+      Memory.free(block);
+      return;
+    }
+
+    assert sc >= 0 && sc < CLASS_CNT;
+
+    Cache cache = CACHE.get();
+    int   i     = (int) sc;
+
+    Memory.memput(block, cache.heads[i]);
+    cache.heads[i] = block;
+
+    if (++cache.counts[i] > BATCH << 1) cache.flush(i);
+  }
+
+  /*
+   * Per thread free lists. A free block's header holds the
+   * pointer to the next free block in the list.
+   */
+  private static final class Cache {
+    final long[] heads  = new long[CLASS_CNT];
+    final int[]  counts = new int[CLASS_CNT];
+
+    /*
+     * Refills an empty free list from the depot, or from a new slab
+     * if the depot has nothing to offer.
+     */
+    long refill(int sc) {
+      Batch batch = DEPOTS[sc].pop();
+
+      if (batch != null) {
+        heads[sc]  = batch.head;
+        counts[sc] = batch.count;
+
+      } else {
+        long block_size = CLASS_SIZES[sc] + HEADER;
+        long slab       = Memory.malloc(SLAB_SIZE);
+        int  cnt        = (int) (SLAB_SIZE / block_size);
+        long head       = 0;
+
+        for (int i = cnt - 1; i >= 0; i--) {
+          long block = slab + i * block_size;
+
+          Memory.memput(block, head);
+          head = block;
+        }
+
+        heads[sc]  = head;
+        counts[sc] = cnt;
+      }
+
+      return heads[sc];
+    }
+
+    /*
+     * Moves BATCH blocks from the head of the free list to the depot.
+     */
+    void flush(int sc) {
+      long head = heads[sc];
+      long tail = head;
+
+      for (int i = 1; i < BATCH; i++)
+        tail = Memory.memget_l(tail);
+
+      heads[sc]   = Memory.memget_l(tail);
+      counts[sc] -= BATCH;
+
+      Memory.memput(tail, 0L);
+
+      DEPOTS[sc].push(new Batch(head, BATCH));
+    }
+  }
+
+  /*
+   * A linked list of free blocks of a single size class.
+   */
+  private static final class Batch {
+    final long head;
+    final int  count;
+    Batch      next;
+
+    Batch(long head, int count) {
+      this.head  = head;
+      this.count = count;
+    }
+  }
+
+  /*
+   * A lock-free stack of batches. Batches are never reused once popped,
+   * so the compare and set cannot suffer from the ABA problem.
+   */
+  private static final class Depot {
+    final AtomicReference<Batch> top = new AtomicReference<>();
+
+    void push(Batch batch) {
+      Batch t;
+
+      do {
+        t = top.get();
+        batch.next = t;
+      } while (!top.compareAndSet(t, batch));
+    }
+
+    Batch pop() {
+      Batch t;
+
+      do {
+        t = top.get();
+        if (t == null) return null;
+      } while (!top.compareAndSet(t, t.next));
+
+      return t;
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A {@link RingBuffer} for exactly one producer thread and one consumer thread.
+ *
+ * <p>Each side only ever writes its own counter, so claiming and reading need no
+ * atomic instructions at all. Messages are published by an ordered write of the
+ * producer's counter, which the consumer reads only when its cached copy of the
+ * counter shows no more messages.
+ *
+ * <p>A claim must be committed before the next claim is made.
+ *
+ * @author  Jack Green (ja-green)
+ * @see     MpscRingBuffer
+ */
+public final class SpscRingBuffer extends RingBuffer {
+
+  /**
+   * Creates a buffer holding {@code capacity} messages of {@code message_size} bytes.
+   *
+   * @param   capacity     the number of messages, a power of two
+   * @param   message_size the size in bytes of each message
+   */
+  public SpscRingBuffer(long capacity, int message_size) {
+    super(capacity, message_size, 0);
+  }
+
+  @Override
+  public long claim(int count) {
+    long tail = Memory.memget_l(base + TAIL);
+    long head = free_head(tail, count);
+
+    return (tail + count - head > capacity) ? -1 : tail;
+  }
+
+  @Override
+  public void commit(long sequence, int count) {
+    assert sequence == Memory.memget_l(base + TAIL);
+
+    Memory.put_ordered(base + TAIL, sequence + count);
+  }
+
+  @Override
+  public int available(int max) {
+    long head = Memory.memget_l(base + HEAD);
+    long tail = Memory.memget_l(base + TAIL_CACHE);
+
+    if (tail - head < max) {
+      tail = Memory.get_acquire_l(base + TAIL);
+      Memory.memput(base + TAIL_CACHE, tail);
+    }
+
+    return (int) Math.min(max, tail - head);
+  }
+}
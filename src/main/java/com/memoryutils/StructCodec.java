@@ -0,0 +1,147 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Copies objects of a single class to and from off-heap memory using
+ * code generated at runtime for that class.
+ *
+ * <p>A codec is obtained using {@link #of(Class)}. The first call for a class
+ * generates a class whose {@link #write(Object, long)} and {@link #read(long)}
+ * methods are straight-line sequences of {@code sun.misc.Unsafe} calls with every
+ * field offset embedded as a constant, so there is no looping over fields,
+ * no reflection and no boxing. Generated classes are cached per class.
+ *
+ * <p>The off-heap format is the one used by {@link Memory#memput(long, Object)},
+ * {@link Memory#memget_object(long, Class)} and {@link Memory#memget_field(long, Class, int)},
+ * so memory written by one can be read by the others.
+ *
+ * <p>Only classes whose instance fields are all primitives are supported.
+ *
+ * <p>Like {@link Memory}, generated code performs no checks on the pointers it is given.
+ *
+ * @param   <T> the class copied by this codec
+ * @author  Jack Green (ja-green)
+ * @see     Memory#memput(long, Object)
+ * @see     Memory#memget_object(long, Class)
+ */
+public abstract class StructCodec<T> {
+  private static final ClassValue<StructCodec<?>> CODECS = new ClassValue<StructCodec<?>>() {
+    @Override protected StructCodec<?> computeValue(Class<?> clazz) {
+      return StructCodecGenerator.generate(clazz);
+    }
+  };
+
+  private final Class<T> type;
+  private final Layout   layout;
+  private final long     size;
+
+  MethodHandle[] getters;
+  MethodHandle[] setters;
+
+  /**
+   * Constructor for use by generated subclasses only.
+   *
+   * @param   type the class copied by this codec
+   */
+  protected StructCodec(Class<T> type) {
+    this.type   = type;
+    this.layout = Layout.of(type);
+    this.size   = layout.size;
+  }
+
+  /**
+   * Gets the codec for the class {@code clazz}, generating it if this
+   * is the first request for the class.
+   *
+   * @param   clazz the class to get the codec of
+   * @param   <T>   the class to get the codec of
+   * @return  the codec for the class
+   * @throws  IllegalArgumentException if the class has any instance
+   *          fields which are not primitives, or is a record or hidden class
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> StructCodec<T> of(Class<T> clazz) {
+    return (StructCodec<T>) CODECS.get(clazz);
+  }
+
+  /**
+   * Puts the fields of the object, {@code o} at the address pointed to by {@code pointer}.
+   *
+   * @param   o       the object to put
+   * @param   pointer the memory location to put the object
+   */
+  public abstract void write(T o, long pointer);
+
+  /**
+   * Gets a new instance of the class, with its fields read from the address
+   * pointed to by {@code pointer}. No constructor is run.
+   *
+   * @param   pointer the memory location to get the object from
+   * @return  the new instance
+   */
+  public abstract T read(long pointer);
+
+  /**
+   * Gets the class copied by this codec.
+   *
+   * @return  the class copied by this codec
+   */
+  public final Class<T> type() {
+    return type;
+  }
+
+  /**
+   * Gets the number of bytes written by {@link #write(Object, long)},
+   * for use with {@link Memory#malloc(long)}.
+   *
+   * @return  the size in bytes of an object of the class
+   */
+  public final long size() {
+    return size;
+  }
+
+  /**
+   * Gets a handle to a generated static method of type {@code (long)F}, where F is
+   * the type of the field named {@code name}, which reads the field from an object
+   * at the address passed to it.
+   *
+   * @param   name the name of the field
+   * @return  the getter for the field, or {@code null} if there is no such field
+   */
+  public final MethodHandle getter(String name) {
+    int i = layout.index(name);
+
+    return (i < 0) ? null : getters[i];
+  }
+
+  /**
+   * Gets a handle to a generated static method of type {@code (long, F)void}, where F
+   * is the type of the field named {@code name}, which writes the field of an object
+   * at the address passed to it.
+   *
+   * @param   name the name of the field
+   * @return  the setter for the field, or {@code null} if there is no such field
+   */
+  public final MethodHandle setter(String name) {
+    int i = layout.index(name);
+
+    return (i < 0) ? null : setters[i];
+  }
+}
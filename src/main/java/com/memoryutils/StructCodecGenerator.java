@@ -0,0 +1,454 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates the class file of a {@link StructCodec} subclass for a class.
+ *
+ * <p>The generated class has no branches, so it needs no stack map frames and
+ * can be written by hand without a bytecode library. It is defined in its own
+ * class loader so it can be unloaded along with the class it copies. The
+ * {@code sun.misc.Unsafe} instance and target class are passed in through private
+ * static fields, which are set reflectively before the first instance is created,
+ * so the generated class does not hand Unsafe out to other code.
+ *
+ * <p>For each instance field {@code i} of the target class the generated class
+ * contains:
+ * <pre>
+ *   public static F get{i}(long pointer)
+ *   public static void set{i}(long pointer, F val)
+ * </pre>
+ * along with the {@code write} and {@code read} methods of {@link StructCodec}.
+ *
+ * @author  Jack Green (ja-green)
+ */
+final class StructCodecGenerator {
+  private static final String PACKAGE  = "com/memoryutils/generated/";
+  private static final String SUPER    = "com/memoryutils/StructCodec";
+  private static final String UNSAFE   = "sun/misc/Unsafe";
+  private static final String D_UNSAFE = "Lsun/misc/Unsafe;";
+  private static final String D_CLASS  = "Ljava/lang/Class;";
+
+  private static final AtomicLong SEQUENCE = new AtomicLong();
+
+  /*
+   * Descriptors and Unsafe method suffixes of the off-heap accessors
+   * used for each primitive kind, indexed by kind.
+   */
+  private static final String[] DESCRIPTORS = { "J", "D", "I", "F", "C", "S", "B", "Z" };
+  private static final String[] RAW_NAMES   = { "Long", "Double", "Int", "Float", "Char", "Short", "Byte", "Byte" };
+  private static final String[] RAW_DESCS   = { "J", "D", "I", "F", "C", "S", "B", "B" };
+
+  private static final Class<?>[] TYPES = {
+    long.class, double.class, int.class, float.class,
+    char.class, short.class, byte.class, boolean.class
+  };
+
+  private static final int ACC_PUBLIC  = 0x0001;
+  private static final int ACC_PRIVATE = 0x0002;
+  private static final int ACC_STATIC  = 0x0008;
+  private static final int ACC_FINAL   = 0x0010;
+  private static final int ACC_SUPER   = 0x0020;
+
+  private static final int ALOAD_0       = 0x2a;
+  private static final int ALOAD_1       = 0x2b;
+  private static final int ALOAD_3       = 0x2d;
+  private static final int ASTORE_3      = 0x4e;
+  private static final int LLOAD_0       = 0x1e;
+  private static final int LLOAD_1       = 0x1f;
+  private static final int LLOAD_2       = 0x20;
+  private static final int ILOAD_2       = 0x1c;
+  private static final int FLOAD_2       = 0x24;
+  private static final int DLOAD_2       = 0x28;
+  private static final int ICONST_1      = 0x04;
+  private static final int IAND          = 0x7e;
+  private static final int LADD          = 0x61;
+  private static final int LDC2_W        = 0x14;
+  private static final int GETSTATIC     = 0xb2;
+  private static final int INVOKEVIRTUAL = 0xb6;
+  private static final int INVOKESPECIAL = 0xb7;
+  private static final int IRETURN       = 0xac;
+  private static final int LRETURN       = 0xad;
+  private static final int FRETURN       = 0xae;
+  private static final int DRETURN       = 0xaf;
+  private static final int ARETURN       = 0xb0;
+  private static final int RETURN        = 0xb1;
+
+  /*
+   * Suppresses default constructor, ensuring non-instantiability.
+   */
+  private StructCodecGenerator() {}
+
+  static StructCodec<?> generate(Class<?> clazz) {
+    Layout layout = Layout.exact(clazz);
+
+    if (!layout.fixed)
+      throw new IllegalArgumentException(clazz.getName() + " has non-primitive instance fields");
+
+    String name = PACKAGE + "Codec$" + clazz.getSimpleName() + "$" + SEQUENCE.incrementAndGet();
+
+    try {
+      Class<?> codec = new Loader().define(name.replace('/', '.'), emit(name, layout));
+
+      set(codec, "U", Memory.unsafe());
+      set(codec, "C", clazz);
+
+      StructCodec<?> instance = (StructCodec<?>) codec.getConstructor(Class.class).newInstance(clazz);
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+      int n = layout.kinds.length;
+
+      instance.getters = new MethodHandle[n];
+      instance.setters = new MethodHandle[n];
+
+      for (int i = 0; i < n; i++) {
+        Class<?> type = TYPES[layout.kinds[i]];
+
+        instance.getters[i] = lookup.findStatic(codec, "get" + i, MethodType.methodType(type, long.class));
+        instance.setters[i] = lookup.findStatic(codec, "set" + i, MethodType.methodType(void.class, long.class, type));
+      }
+
+      return instance;
+
+    } catch (ReflectiveOperationException | IOException ex) {
+      throw new AssertionError(ex);
+    }
+  }
+
+  private static void set(Class<?> codec, String name, Object val) throws ReflectiveOperationException {
+    Field field = codec.getDeclaredField(name);
+
+    field.setAccessible(true);
+    field.set(null, val);
+  }
+
+  private static byte[] emit(String name, Layout layout) throws IOException {
+    Pool pool = new Pool();
+    int  n    = layout.kinds.length;
+
+    int this_class  = pool.cls(name);
+    int super_class = pool.cls(SUPER);
+
+    int f_unsafe    = pool.field(name, "U", D_UNSAFE);
+    int f_class     = pool.field(name, "C", D_CLASS);
+
+    Method[] methods = new Method[2 * n + 3];
+    int      m       = 0;
+
+    /*
+     * public <init>(Class type) { super(type); }
+     */
+    Method init = methods[m++] = new Method(ACC_PUBLIC, pool.utf8("<init>"), pool.utf8("(Ljava/lang/Class;)V"), 2, 2);
+    init.op(ALOAD_0).op(ALOAD_1)
+        .op(INVOKESPECIAL).u2(pool.method(SUPER, "<init>", "(Ljava/lang/Class;)V"))
+        .op(RETURN);
+
+    /*
+     * public void write(Object o, long pointer) {
+     *   U.putX(pointer + position, U.getX(o, offset)); ...
+     * }
+     */
+    Method write = methods[m++] = new Method(ACC_PUBLIC, pool.utf8("write"), pool.utf8("(Ljava/lang/Object;J)V"), 7, 4);
+
+    for (int i = 0; i < n; i++) {
+      int    kind = layout.kinds[i];
+      String heap = (kind == Layout.BOOLEAN) ? "Boolean" : RAW_NAMES[kind];
+
+      write.op(GETSTATIC).u2(f_unsafe)
+           .op(LLOAD_2).op(LDC2_W).u2(pool.constant(layout.positions[i])).op(LADD)
+           .op(GETSTATIC).u2(f_unsafe)
+           .op(ALOAD_1).op(LDC2_W).u2(pool.constant(layout.offsets[i]))
+           .op(INVOKEVIRTUAL).u2(pool.method(UNSAFE, "get" + heap, "(Ljava/lang/Object;J)" + DESCRIPTORS[kind]))
+           .op(INVOKEVIRTUAL).u2(pool.method(UNSAFE, "put" + RAW_NAMES[kind], "(J" + RAW_DESCS[kind] + ")V"));
+    }
+
+    write.op(RETURN);
+
+    /*
+     * public Object read(long pointer) {
+     *   Object o = U.allocateInstance(C);
+     *   U.putX(o, offset, U.getX(pointer + position)); ...
+     *   return o;
+     * }
+     */
+    Method read = methods[m++] = new Method(ACC_PUBLIC, pool.utf8("read"), pool.utf8("(J)Ljava/lang/Object;"), 9, 4);
+
+    read.op(GETSTATIC).u2(f_unsafe)
+        .op(GETSTATIC).u2(f_class)
+        .op(INVOKEVIRTUAL).u2(pool.method(UNSAFE, "allocateInstance", "(Ljava/lang/Class;)Ljava/lang/Object;"))
+        .op(ASTORE_3);
+
+    for (int i = 0; i < n; i++) {
+      int kind = layout.kinds[i];
+
+      read.op(GETSTATIC).u2(f_unsafe)
+          .op(ALOAD_3).op(LDC2_W).u2(pool.constant(layout.offsets[i]))
+          .op(GETSTATIC).u2(f_unsafe)
+          .op(LLOAD_1).op(LDC2_W).u2(pool.constant(layout.positions[i])).op(LADD)
+          .op(INVOKEVIRTUAL).u2(pool.method(UNSAFE, "get" + RAW_NAMES[kind], "(J)" + RAW_DESCS[kind]))
+          .op(INVOKEVIRTUAL).u2(pool.method(UNSAFE, "put" + RAW_NAMES[kind], "(Ljava/lang/Object;J" + RAW_DESCS[kind] + ")V"));
+    }
+
+    read.op(ALOAD_3).op(ARETURN);
+
+    /*
+     * public static F get{i}(long pointer) { return U.getX(pointer + position); }
+     * public static void set{i}(long pointer, F val) { U.putX(pointer + position, val); }
+     */
+    for (int i = 0; i < n; i++) {
+      int    kind = layout.kinds[i];
+      String desc = DESCRIPTORS[kind];
+      int    pos  = pool.constant(layout.positions[i]);
+      int    wide = (kind == Layout.LONG || kind == Layout.DOUBLE) ? 1 : 0;
+
+      Method get = methods[m++] = new Method(ACC_PUBLIC | ACC_STATIC,
+        pool.utf8("get" + i), pool.utf8("(J)" + desc), 5, 2);
+
+      get.op(GETSTATIC).u2(f_unsafe)
+         .op(LLOAD_0).op(LDC2_W).u2(pos).op(LADD)
+         .op(INVOKEVIRTUAL).u2(pool.method(UNSAFE, "get" + RAW_NAMES[kind], "(J)" + RAW_DESCS[kind]));
+
+      if (kind == Layout.BOOLEAN) get.op(ICONST_1).op(IAND);
+
+      get.op(return_op(kind));
+
+      Method set = methods[m++] = new Method(ACC_PUBLIC | ACC_STATIC,
+        pool.utf8("set" + i), pool.utf8("(J" + desc + ")V"), 6 + wide, 3 + wide);
+
+      set.op(GETSTATIC).u2(f_unsafe)
+         .op(LLOAD_0).op(LDC2_W).u2(pos).op(LADD)
+         .op(load_op(kind))
+         .op(INVOKEVIRTUAL).u2(pool.method(UNSAFE, "put" + RAW_NAMES[kind], "(J" + RAW_DESCS[kind] + ")V"))
+         .op(RETURN);
+    }
+
+    int code = pool.utf8("Code");
+    int u    = pool.utf8("U"), u_desc = pool.utf8(D_UNSAFE);
+    int c    = pool.utf8("C"), c_desc = pool.utf8(D_CLASS);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream      out   = new DataOutputStream(bytes);
+
+    out.writeInt(0xCAFEBABE);
+    out.writeShort(0);
+    out.writeShort(52);
+
+    pool.write(out);
+
+    out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+    out.writeShort(this_class);
+    out.writeShort(super_class);
+    out.writeShort(0);
+
+    out.writeShort(2);
+    for (int[] f : new int[][] { { u, u_desc }, { c, c_desc } }) {
+      out.writeShort(ACC_PRIVATE | ACC_STATIC);
+      out.writeShort(f[0]);
+      out.writeShort(f[1]);
+      out.writeShort(0);
+    }
+
+    out.writeShort(m);
+    for (int i = 0; i < m; i++)
+      methods[i].write(out, code);
+
+    out.writeShort(0);
+
+    return bytes.toByteArray();
+  }
+
+  private static int return_op(int kind) {
+    switch (kind) {
+      case Layout.LONG:   return LRETURN;
+      case Layout.DOUBLE: return DRETURN;
+      case Layout.FLOAT:  return FRETURN;
+      default:            return IRETURN;
+    }
+  }
+
+  private static int load_op(int kind) {
+    switch (kind) {
+      case Layout.LONG:   return LLOAD_2;
+      case Layout.DOUBLE: return DLOAD_2;
+      case Layout.FLOAT:  return FLOAD_2;
+      default:            return ILOAD_2;
+    }
+  }
+
+  /*
+   * A class file constant pool, returning the index of an
+   * existing entry when the same constant is added twice.
+   */
+  private static final class Pool {
+    private final ByteArrayOutputStream bytes   = new ByteArrayOutputStream();
+    private final DataOutputStream      out     = new DataOutputStream(bytes);
+    private final Map<String, Integer>  entries = new HashMap<>();
+    private int                         next    = 1;
+
+    int utf8(String s) throws IOException {
+      Integer i = entries.get("U" + s);
+      if (i != null) return i;
+
+      out.writeByte(1);
+      out.writeUTF(s);
+
+      return add("U" + s, 1);
+    }
+
+    int cls(String name) throws IOException {
+      Integer i = entries.get("C" + name);
+      if (i != null) return i;
+
+      int n = utf8(name);
+
+      out.writeByte(7);
+      out.writeShort(n);
+
+      return add("C" + name, 1);
+    }
+
+    int constant(long val) throws IOException {
+      Integer i = entries.get("J" + val);
+      if (i != null) return i;
+
+      out.writeByte(5);
+      out.writeLong(val);
+
+      return add("J" + val, 2);
+    }
+
+    int field(String owner, String name, String desc) throws IOException {
+      return member(9, owner, name, desc);
+    }
+
+    int method(String owner, String name, String desc) throws IOException {
+      return member(10, owner, name, desc);
+    }
+
+    private int member(int tag, String owner, String name, String desc) throws IOException {
+      String key = tag + owner + "." + name + desc;
+      Integer i  = entries.get(key);
+      if (i != null) return i;
+
+      int o  = cls(owner);
+      int nt = name_and_type(name, desc);
+
+      out.writeByte(tag);
+      out.writeShort(o);
+      out.writeShort(nt);
+
+      return add(key, 1);
+    }
+
+    private int name_and_type(String name, String desc) throws IOException {
+      String key = "N" + name + desc;
+      Integer i  = entries.get(key);
+      if (i != null) return i;
+
+      int n = utf8(name);
+      int d = utf8(desc);
+
+      out.writeByte(12);
+      out.writeShort(n);
+      out.writeShort(d);
+
+      return add(key, 1);
+    }
+
+    private int add(String key, int slots) {
+      int index = next;
+
+      entries.put(key, index);
+      next += slots;
+
+      return index;
+    }
+
+    void write(DataOutputStream dest) throws IOException {
+      dest.writeShort(next);
+      bytes.writeTo(dest);
+    }
+  }
+
+  /*
+   * A method with a single Code attribute and no exception handlers.
+   */
+  private static final class Method {
+    private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+    private final int access, name, desc, max_stack, max_locals;
+
+    Method(int access, int name, int desc, int max_stack, int max_locals) {
+      this.access     = access;
+      this.name       = name;
+      this.desc       = desc;
+      this.max_stack  = max_stack;
+      this.max_locals = max_locals;
+    }
+
+    Method op(int op) {
+      code.write(op);
+      return this;
+    }
+
+    Method u2(int val) {
+      code.write(val >>> 8);
+      code.write(val);
+      return this;
+    }
+
+    void write(DataOutputStream out, int code_name) throws IOException {
+      out.writeShort(access);
+      out.writeShort(name);
+      out.writeShort(desc);
+      out.writeShort(1);
+
+      out.writeShort(code_name);
+      out.writeInt(12 + code.size());
+      out.writeShort(max_stack);
+      out.writeShort(max_locals);
+      out.writeInt(code.size());
+      code.writeTo(out);
+      out.writeShort(0);
+      out.writeShort(0);
+    }
+  }
+
+  /*
+   * Each generated class gets its own loader, so it can be
+   * unloaded once the class it copies is unreachable.
+   */
+  private static final class Loader extends ClassLoader {
+    Loader() {
+      super(StructCodec.class.getClassLoader());
+    }
+
+    Class<?> define(String name, byte[] b) {
+      return defineClass(name, b, 0, b.length);
+    }
+  }
+}
@@ -0,0 +1,315 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A flyweight view of an object of a single class stored in off-heap memory
+ * by {@link Memory#memput(long, Object)} or {@link StructCodec#write(Object, long)}.
+ *
+ * <p>A view holds nothing but the address of the object it is currently looking
+ * at and the precomputed positions of the fields of its class. It can be pointed
+ * at another object using {@link #wrap(long)}, so a single view can be used to
+ * read or write any number of objects without allocating.
+ *
+ * <p>Fields are accessed by index, as given by {@link #index(String)}. Look the
+ * index up once and reuse it, rather than looking it up for every access.
+ *
+ * <pre>
+ *   StructView view = new StructView(Point.class);
+ *   int x = view.index("x");
+ *
+ *   for (long p = start; p &lt; end; p += view.size())
+ *     sum += view.wrap(p).get_i(x);
+ * </pre>
+ *
+ * <p>Only classes whose instance fields are all primitives are supported,
+ * the constructor throws for any other class. Views are not thread safe, use
+ * one view per thread. Like the rest of this library, checks on the field
+ * accessors use only the assert keyword.
+ *
+ * @author  Jack Green (ja-green)
+ * @see     StructCodec
+ */
+public final class StructView {
+  private final Layout  layout;
+  private final long[]  positions;
+  private final long    size;
+
+  private long          pointer;
+
+  /**
+   * Creates a view for objects of the class {@code clazz}. The view
+   * initially points at nothing.
+   *
+   * @param   clazz the class of the objects to view
+   * @throws  IllegalArgumentException if the class has any instance
+   *          fields which are not primitives, or is a record or hidden class
+   */
+  public StructView(Class<?> clazz) {
+    this.layout    = Layout.exact(clazz);
+    this.positions = layout.positions;
+    this.size      = layout.size;
+
+    if (!layout.fixed)
+      throw new IllegalArgumentException(clazz.getName() + " has non-primitive instance fields");
+  }
+
+  /**
+   * Points this view at the object at the address {@code pointer}.
+   *
+   * @param   pointer the memory location of the object
+   * @return  this view
+   */
+  public StructView wrap(long pointer) {
+    assert pointer != 0;
+
+    this.pointer = pointer;
+
+    return this;
+  }
+
+  /**
+   * Gets the address of the object this view currently points at.
+   *
+   * @return  the pointer to the current object
+   */
+  public long pointer() {
+    return pointer;
+  }
+
+  /**
+   * Gets the number of bytes occupied by each object, the stride
+   * between consecutive objects in an array of them.
+   *
+   * @return  the size in bytes of an object of the class
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Gets the index of the field named {@code name}.
+   *
+   * @param   name the name of the field
+   * @return  the index of the field, or -1 if there is no such field
+   */
+  public int index(String name) {
+    return layout.index(name);
+  }
+
+  /**
+   * Gets the offset of a field from the start of the object.
+   *
+   * @param   field the index of the field
+   * @return  the offset of the field in bytes
+   */
+  public long offset(int field) {
+    return positions[field];
+  }
+
+  /**
+   * Gets the byte field at index {@code field}.
+   *
+   * @param   field the index of the field
+   * @return  the value of the field
+   */
+  public byte get_b(int field) {
+    assert layout.kinds[field] == Layout.BYTE;
+
+    return Memory.memget_b(pointer + positions[field]);
+  }
+
+  /**
+   * Gets the boolean field at index {@code field}.
+   *
+   * @param   field the index of the field
+   * @return  the value of the field
+   */
+  public boolean get_z(int field) {
+    assert layout.kinds[field] == Layout.BOOLEAN;
+
+    return Memory.memget_b(pointer + positions[field]) != 0;
+  }
+
+  /**
+   * Gets the short field at index {@code field}.
+   *
+   * @param   field the index of the field
+   * @return  the value of the field
+   */
+  public short get_s(int field) {
+    assert layout.kinds[field] == Layout.SHORT;
+
+    return Memory.memget_s(pointer + positions[field]);
+  }
+
+  /**
+   * Gets the char field at index {@code field}.
+   *
+   * @param   field the index of the field
+   * @return  the value of the field
+   */
+  public char get_c(int field) {
+    assert layout.kinds[field] == Layout.CHAR;
+
+    return (char) Memory.memget_s(pointer + positions[field]);
+  }
+
+  /**
+   * Gets the int field at index {@code field}.
+   *
+   * @param   field the index of the field
+   * @return  the value of the field
+   */
+  public int get_i(int field) {
+    assert layout.kinds[field] == Layout.INT;
+
+    return Memory.memget_i(pointer + positions[field]);
+  }
+
+  /**
+   * Gets the float field at index {@code field}.
+   *
+   * @param   field the index of the field
+   * @return  the value of the field
+   */
+  public float get_f(int field) {
+    assert layout.kinds[field] == Layout.FLOAT;
+
+    return Float.intBitsToFloat(Memory.memget_i(pointer + positions[field]));
+  }
+
+  /**
+   * Gets the long field at index {@code field}.
+   *
+   * @param   field the index of the field
+   * @return  the value of the field
+   */
+  public long get_l(int field) {
+    assert layout.kinds[field] == Layout.LONG;
+
+    return Memory.memget_l(pointer + positions[field]);
+  }
+
+  /**
+   * Gets the double field at index {@code field}.
+   *
+   * @param   field the index of the field
+   * @return  the value of the field
+   */
+  public double get_d(int field) {
+    assert layout.kinds[field] == Layout.DOUBLE;
+
+    return Double.longBitsToDouble(Memory.memget_l(pointer + positions[field]));
+  }
+
+  /**
+   * Puts the byte, {@code val} in the field at index {@code field}.
+   *
+   * @param   field the index of the field
+   * @param   val   the byte to put
+   */
+  public void put_b(int field, byte val) {
+    assert layout.kinds[field] == Layout.BYTE;
+
+    Memory.memput(pointer + positions[field], val);
+  }
+
+  /**
+   * Puts the boolean, {@code val} in the field at index {@code field}.
+   *
+   * @param   field the index of the field
+   * @param   val   the boolean to put
+   */
+  public void put_z(int field, boolean val) {
+    assert layout.kinds[field] == Layout.BOOLEAN;
+
+    Memory.memput(pointer + positions[field], val ? (byte) 1 : (byte) 0);
+  }
+
+  /**
+   * Puts the short, {@code val} in the field at index {@code field}.
+   *
+   * @param   field the index of the field
+   * @param   val   the short to put
+   */
+  public void put_s(int field, short val) {
+    assert layout.kinds[field] == Layout.SHORT;
+
+    Memory.memput(pointer + positions[field], val);
+  }
+
+  /**
+   * Puts the char, {@code val} in the field at index {@code field}.
+   *
+   * @param   field the index of the field
+   * @param   val   the char to put
+   */
+  public void put_c(int field, char val) {
+    assert layout.kinds[field] == Layout.CHAR;
+
+    Memory.memput(pointer + positions[field], (short) val);
+  }
+
+  /**
+   * Puts the int, {@code val} in the field at index {@code field}.
+   *
+   * @param   field the index of the field
+   * @param   val   the int to put
+   */
+  public void put_i(int field, int val) {
+    assert layout.kinds[field] == Layout.INT;
+
+    Memory.memput(pointer + positions[field], val);
+  }
+
+  /**
+   * Puts the float, {@code val} in the field at index {@code field}.
+   *
+   * @param   field the index of the field
+   * @param   val   the float to put
+   */
+  public void put_f(int field, float val) {
+    assert layout.kinds[field] == Layout.FLOAT;
+
+    Memory.memput(pointer + positions[field], Float.floatToRawIntBits(val));
+  }
+
+  /**
+   * Puts the long, {@code val} in the field at index {@code field}.
+   *
+   * @param   field the index of the field
+   * @param   val   the long to put
+   */
+  public void put_l(int field, long val) {
+    assert layout.kinds[field] == Layout.LONG;
+
+    Memory.memput(pointer + positions[field], val);
+  }
+
+  /**
+   * Puts the double, {@code val} in the field at index {@code field}.
+   *
+   * @param   field the index of the field
+   * @param   val   the double to put
+   */
+  public void put_d(int field, double val) {
+    assert layout.kinds[field] == Layout.DOUBLE;
+
+    Memory.memput(pointer + positions[field], Double.doubleToRawLongBits(val));
+  }
+}
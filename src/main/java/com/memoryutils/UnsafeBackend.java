@@ -0,0 +1,143 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import sun.misc.Unsafe;
+
+/**
+ * Implementation of {@link Backend} using {@code sun.misc.Unsafe}.
+ *
+ * @author  Jack Green (ja-green)
+ */
+final class UnsafeBackend implements Backend {
+
+  /*
+   * Unsafe.copyMemory and Unsafe.setMemory cannot reach a safepoint,
+   * so very large blocks are handled in chunks of this many bytes to
+   * avoid holding up every other thread waiting for a GC.
+   */
+  private static final long CHUNK = 1024 * 1024;
+
+  private final Unsafe unsafe;
+
+  UnsafeBackend(Unsafe unsafe) {
+    this.unsafe = unsafe;
+  }
+
+  @Override
+  public long malloc(long bytes) {
+    return unsafe.allocateMemory(bytes);
+  }
+
+  @Override
+  public long realloc(long pointer, long bytes) {
+    return unsafe.reallocateMemory(pointer, bytes);
+  }
+
+  @Override
+  public void free(long pointer) {
+    unsafe.freeMemory(pointer);
+  }
+
+  @Override
+  public void copy(long src, long dest, long bytes) {
+    while (bytes > 0) {
+      long size = Math.min(bytes, CHUNK);
+
+      unsafe.copyMemory(src, dest, size);
+
+      bytes -= size;
+      src   += size;
+      dest  += size;
+    }
+  }
+
+  @Override
+  public void set(long pointer, long bytes, byte val) {
+    while (bytes > 0) {
+      long size = Math.min(bytes, CHUNK);
+
+      unsafe.setMemory(pointer, size, val);
+
+      bytes   -= size;
+      pointer += size;
+    }
+  }
+
+  @Override
+  public byte get_b(long pointer) {
+    return unsafe.getByte(pointer);
+  }
+
+  @Override
+  public short get_s(long pointer) {
+    return unsafe.getShort(pointer);
+  }
+
+  @Override
+  public int get_i(long pointer) {
+    return unsafe.getInt(pointer);
+  }
+
+  @Override
+  public long get_l(long pointer) {
+    return unsafe.getLong(pointer);
+  }
+
+  @Override
+  public void put(long pointer, byte val) {
+    unsafe.putByte(pointer, val);
+  }
+
+  @Override
+  public void put(long pointer, short val) {
+    unsafe.putShort(pointer, val);
+  }
+
+  @Override
+  public void put(long pointer, int val) {
+    unsafe.putInt(pointer, val);
+  }
+
+  @Override
+  public void put(long pointer, long val) {
+    unsafe.putLong(pointer, val);
+  }
+
+  /*
+   * Mapping memory needs a native call, which Unsafe cannot make.
+   */
+  @Override
+  public long map_huge(long bytes, long page) {
+    return 0;
+  }
+
+  @Override
+  public long map_advised(long bytes, long page) {
+    return 0;
+  }
+
+  /*
+   * Only called for regions returned by map_huge or map_advised,
+   * which never return one.
+   */
+  @Override
+  public void unmap(long pointer, long bytes) {
+    assert false : "not a region mapped by this backend";
+  }
+}
@@ -0,0 +1,78 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Bulk operations over ranges of off-heap memory which {@link Memory} hands
+ * off to a SIMD implementation when one is available.
+ *
+ * <p>The only implementation, {@code VectorMemory}, uses the incubating Vector API
+ * and is compiled separately for JDK 22 and above, under {@code META-INF/versions/22}
+ * of the multi-release jar. It is loaded by name at startup
+ * so this library still builds and runs without it, in which case {@link #load()}
+ * returns {@code null} and {@link Memory} uses its scalar code.
+ *
+ * <p>Loading can be disabled with the system property
+ * {@code -Dcom.memoryutils.vector=false}.
+ *
+ * @author  Jack Green (ja-green)
+ */
+interface VectorOps {
+
+  /**
+   * See {@link Memory#memcmp(long, long, long)}.
+   */
+  boolean memcmp(long pointer1, long pointer2, long len);
+
+  /**
+   * See {@link Memory#memchr(long, byte, long)}.
+   */
+  long memchr(long pointer, byte val, long len);
+
+  /**
+   * See {@link Memory#memset(long, byte, long)}.
+   */
+  void memset(long pointer, byte val, long len);
+
+  /**
+   * See {@link Memory#popcount(long, long)}.
+   */
+  long popcount(long pointer, long len);
+
+  /**
+   * Loads the SIMD implementation.
+   *
+   * @return  the SIMD implementation, or {@code null} if it is unavailable
+   */
+  static VectorOps load() {
+    if (!Boolean.parseBoolean(System.getProperty("com.memoryutils.vector", "true")))
+      return null;
+
+    /*
+     * Initialising the class fails with a LinkageError if the
+     * jdk.incubator.vector module has not been added.
+     */
+    try {
+      return (VectorOps) Class.forName("com.memoryutils.VectorMemory")
+        .getDeclaredConstructor()
+        .newInstance();
+
+    } catch (ReflectiveOperationException | LinkageError ex) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,266 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SymbolLookup;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Implementation of {@link Backend} using the Foreign Function and Memory API.
+ *
+ * <p>Memory is allocated by calling the C library's {@code malloc}, {@code realloc}
+ * and {@code free} through downcall handles, passing pointers as plain 64 bit
+ * integers. Memory is accessed through a single segment spanning the whole address
+ * space, so a pointer is used directly as the offset into the segment, and accesses
+ * use the unaligned layouts to match {@code sun.misc.Unsafe}.
+ *
+ * <p>This requires JDK 22 and a 64 bit JVM.
+ *
+ * @author  Jack Green (ja-green)
+ */
+final class ForeignBackend implements Backend {
+  private static final MemorySegment ALL = MemorySegment.NULL.reinterpret(Long.MAX_VALUE);
+
+  private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED;
+  private static final ValueLayout.OfInt   INT   = ValueLayout.JAVA_INT_UNALIGNED;
+  private static final ValueLayout.OfLong  LONG  = ValueLayout.JAVA_LONG_UNALIGNED;
+
+  private static final MethodHandle MALLOC;
+  private static final MethodHandle REALLOC;
+  private static final MethodHandle FREE;
+
+  /*
+   * Linux only, the constants below are those of Linux on every architecture.
+   */
+  private static final boolean      LINUX = System.getProperty("os.name").startsWith("Linux");
+
+  private static final int          PROT_READ_WRITE = 0x3;
+  private static final int          MAP_PRIVATE     = 0x02;
+  private static final int          MAP_ANONYMOUS   = 0x20;
+  private static final int          MAP_HUGETLB     = 0x40000;
+  private static final int          MADV_HUGEPAGE   = 14;
+  private static final long         MAP_FAILED      = -1;
+
+  private static final MethodHandle MMAP;
+  private static final MethodHandle MUNMAP;
+  private static final MethodHandle MADVISE;
+
+  static {
+    if (ValueLayout.ADDRESS.byteSize() != 8)
+      throw new UnsupportedOperationException("32 bit JVM");
+
+    Linker       linker = Linker.nativeLinker();
+    SymbolLookup libc   = linker.defaultLookup();
+
+    MALLOC  = linker.downcallHandle(libc.find("malloc").orElseThrow(),
+      FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG));
+
+    REALLOC = linker.downcallHandle(libc.find("realloc").orElseThrow(),
+      FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG));
+
+    FREE    = linker.downcallHandle(libc.find("free").orElseThrow(),
+      FunctionDescriptor.ofVoid(ValueLayout.JAVA_LONG));
+
+    if (LINUX) {
+      MMAP    = linker.downcallHandle(libc.find("mmap").orElseThrow(),
+        FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG,
+          ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG));
+
+      MUNMAP  = linker.downcallHandle(libc.find("munmap").orElseThrow(),
+        FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG));
+
+      MADVISE = linker.downcallHandle(libc.find("madvise").orElseThrow(),
+        FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT));
+
+    } else {
+      MMAP    = null;
+      MUNMAP  = null;
+      MADVISE = null;
+    }
+  }
+
+  /*
+   * As Unsafe.allocateMemory, a request for 0 bytes returns a null
+   * pointer and failing to allocate throws an OutOfMemoryError.
+   */
+  @Override
+  public long malloc(long bytes) {
+    if (bytes == 0) return 0;
+
+    try {
+      return check((long) MALLOC.invokeExact(bytes), bytes);
+
+    } catch (Throwable ex) {
+      throw rethrow(ex);
+    }
+  }
+
+  /*
+   * As Unsafe.reallocateMemory, re-sizing to 0 bytes frees the block and
+   * a null pointer is re-sized as if allocated by malloc.
+   */
+  @Override
+  public long realloc(long pointer, long bytes) {
+    if (bytes == 0) {
+      free(pointer);
+      return 0;
+    }
+
+    try {
+      return check((long) REALLOC.invokeExact(pointer, bytes), bytes);
+
+    } catch (Throwable ex) {
+      throw rethrow(ex);
+    }
+  }
+
+  @Override
+  public void free(long pointer) {
+    try {
+      FREE.invokeExact(pointer);
+
+    } catch (Throwable ex) {
+      throw rethrow(ex);
+    }
+  }
+
+  @Override
+  public void copy(long src, long dest, long bytes) {
+    MemorySegment.copy(ALL, src, ALL, dest, bytes);
+  }
+
+  @Override
+  public void set(long pointer, long bytes, byte val) {
+    ALL.asSlice(pointer, bytes).fill(val);
+  }
+
+  @Override
+  public byte get_b(long pointer) {
+    return ALL.get(ValueLayout.JAVA_BYTE, pointer);
+  }
+
+  @Override
+  public short get_s(long pointer) {
+    return ALL.get(SHORT, pointer);
+  }
+
+  @Override
+  public int get_i(long pointer) {
+    return ALL.get(INT, pointer);
+  }
+
+  @Override
+  public long get_l(long pointer) {
+    return ALL.get(LONG, pointer);
+  }
+
+  @Override
+  public void put(long pointer, byte val) {
+    ALL.set(ValueLayout.JAVA_BYTE, pointer, val);
+  }
+
+  @Override
+  public void put(long pointer, short val) {
+    ALL.set(SHORT, pointer, val);
+  }
+
+  @Override
+  public void put(long pointer, int val) {
+    ALL.set(INT, pointer, val);
+  }
+
+  @Override
+  public void put(long pointer, long val) {
+    ALL.set(LONG, pointer, val);
+  }
+
+  /*
+   * Maps pages from the reserved pool of huge pages, which hugetlbfs draws from.
+   */
+  @Override
+  public long map_huge(long bytes, long page) {
+    if (!LINUX) return 0;
+
+    try {
+      long pointer = (long) MMAP.invokeExact(0L, bytes, PROT_READ_WRITE, MAP_PRIVATE | MAP_ANONYMOUS | MAP_HUGETLB, -1, 0L);
+
+      return (pointer != MAP_FAILED) ? pointer : 0;
+
+    } catch (Throwable ex) {
+      throw rethrow(ex);
+    }
+  }
+
+  /*
+   * Maps normal pages aligned to a huge page, trimming the excess, and asks for
+   * them to be backed by transparent huge pages. Whether they are depends on
+   * /sys/kernel/mm/transparent_hugepage/enabled, and the region is usable either way.
+   */
+  @Override
+  public long map_advised(long bytes, long page) {
+    if (!LINUX) return 0;
+
+    try {
+      long region = (long) MMAP.invokeExact(0L, bytes + page, PROT_READ_WRITE, MAP_PRIVATE | MAP_ANONYMOUS, -1, 0L);
+
+      if (region == MAP_FAILED) return 0;
+
+      long pointer = (region + page - 1) & -page;
+
+      if (pointer > region)
+        unmap(region, pointer - region);
+
+      if (region + page > pointer)
+        unmap(pointer + bytes, region + page - pointer);
+
+      int ignored = (int) MADVISE.invokeExact(pointer, bytes, MADV_HUGEPAGE);
+
+      return pointer;
+
+    } catch (Throwable ex) {
+      throw rethrow(ex);
+    }
+  }
+
+  @Override
+  public void unmap(long pointer, long bytes) {
+    try {
+      int ignored = (int) MUNMAP.invokeExact(pointer, bytes);
+
+    } catch (Throwable ex) {
+      throw rethrow(ex);
+    }
+  }
+
+  private static long check(long pointer, long bytes) {
+    if (pointer == 0) throw new OutOfMemoryError("unable to allocate " + bytes + " bytes");
+
+    return pointer;
+  }
+
+  private static RuntimeException rethrow(Throwable ex) {
+    if (ex instanceof RuntimeException) throw (RuntimeException) ex;
+    if (ex instanceof Error)            throw (Error) ex;
+
+    throw new IllegalStateException(ex);
+  }
+}
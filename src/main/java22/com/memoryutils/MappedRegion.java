@@ -0,0 +1,131 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A region of a file mapped into memory by {@link Memory#mmap(Path, long, long, MapMode)}.
+ *
+ * <p>Files are mapped into a segment using {@link FileChannel#map(MapMode, long, long, java.lang.foreign.Arena)},
+ * which has no limit on the length of a mapping. Each region has its own shared arena,
+ * and closing the arena unmaps the region. Every region is held in a registry by its
+ * address until it is unmapped.
+ *
+ * <p>This replaces the {@code MappedByteBuffer} based region on JDK 22 and above.
+ *
+ * @author  Jack Green (ja-green)
+ */
+final class MappedRegion {
+  private static final ConcurrentHashMap<Long, MappedRegion> REGIONS = new ConcurrentHashMap<>();
+
+  /*
+   * The largest region which can be mapped.
+   */
+  static final long MAX_LENGTH = Long.MAX_VALUE;
+
+  final Path                     path;
+  final long                     offset;
+  final long                     length;
+  final MapMode                  mode;
+  final java.lang.foreign.Arena  arena;
+  final MemorySegment            segment;
+  final long                     pointer;
+
+  private MappedRegion(Path path, long offset, long length, MapMode mode) throws IOException {
+    assert offset >= 0 && length > 0;
+
+    OpenOption[] options = (mode == MapMode.READ_ONLY)
+      ? new OpenOption[] { StandardOpenOption.READ }
+      : new OpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE };
+
+    java.lang.foreign.Arena arena = java.lang.foreign.Arena.ofShared();
+
+    /*
+     * The mapping remains valid after the channel is closed.
+     */
+    try (FileChannel channel = FileChannel.open(path, options)) {
+      this.segment = channel.map(mode, offset, length, arena);
+
+    } catch (IOException | RuntimeException ex) {
+      arena.close();
+      throw ex;
+    }
+
+    this.path    = path;
+    this.offset  = offset;
+    this.length  = length;
+    this.mode    = mode;
+    this.arena   = arena;
+    this.pointer = segment.address();
+  }
+
+  /*
+   * Maps a region of a file and registers it.
+   */
+  static long map(Path path, long offset, long length, MapMode mode) throws IOException {
+    MappedRegion region = new MappedRegion(path, offset, length, mode);
+
+    REGIONS.put(region.pointer, region);
+
+    return region.pointer;
+  }
+
+  /*
+   * Gets the region mapped at pointer.
+   */
+  static MappedRegion get(long pointer) {
+    MappedRegion region = REGIONS.get(pointer);
+
+    assert region != null : "not a mapped pointer";
+
+    return region;
+  }
+
+  void force() {
+    segment.force();
+  }
+
+  /*
+   * Maps the same region of the file with a new length, then unmaps this region.
+   * Writes to a private mapping never reach the file, so they are copied across.
+   */
+  long remap(long length) throws IOException {
+    long pointer = map(path, offset, length, mode);
+
+    if (mode == MapMode.PRIVATE)
+      Memory.memcpy(pointer, this.pointer, Math.min(length, this.length));
+
+    unmap();
+
+    return pointer;
+  }
+
+  void unmap() {
+    REGIONS.remove(pointer);
+
+    arena.close();
+  }
+}
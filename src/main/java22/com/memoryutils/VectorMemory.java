@@ -0,0 +1,131 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Implementation of {@link VectorOps} using the Vector API, processing as many
+ * bytes at a time as the widest vector supported by the hardware holds, i.e.
+ * 32 bytes with AVX2 or 64 bytes with AVX-512.
+ *
+ * <p>Vectors are loaded from a single segment spanning the whole address space,
+ * so a pointer is used directly as the offset into the segment.
+ *
+ * <p>This requires JDK 22 and is only used when the application is started with
+ * {@code --add-modules jdk.incubator.vector}.
+ *
+ * @author  Jack Green (ja-green)
+ */
+final class VectorMemory implements VectorOps {
+  private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+  private static final MemorySegment ALL   = MemorySegment.NULL.reinterpret(Long.MAX_VALUE);
+  private static final ByteOrder     ORDER = ByteOrder.nativeOrder();
+
+  VectorMemory() {
+    /*
+     * Without SIMD support the preferred species is a single
+     * lane wide and no faster than the scalar code.
+     */
+    if (BYTES.length() < 16)
+      throw new UnsupportedOperationException("no SIMD support");
+  }
+
+  @Override
+  public boolean memcmp(long pointer1, long pointer2, long len) {
+    int step = BYTES.length();
+    long i   = 0;
+
+    for (; i <= len - step; i += step) {
+      ByteVector a = ByteVector.fromMemorySegment(BYTES, ALL, pointer1 + i, ORDER);
+      ByteVector b = ByteVector.fromMemorySegment(BYTES, ALL, pointer2 + i, ORDER);
+
+      if (a.compare(VectorOperators.NE, b).anyTrue())
+        return false;
+    }
+
+    for (; i < len; i++)
+      if (get(pointer1 + i) != get(pointer2 + i))
+        return false;
+
+    return true;
+  }
+
+  @Override
+  public long memchr(long pointer, byte val, long len) {
+    int step = BYTES.length();
+    long i   = 0;
+
+    for (; i <= len - step; i += step) {
+      VectorMask<Byte> found = ByteVector.fromMemorySegment(BYTES, ALL, pointer + i, ORDER).eq(val);
+
+      if (found.anyTrue())
+        return pointer + i + found.firstTrue();
+    }
+
+    for (; i < len; i++)
+      if (get(pointer + i) == val)
+        return pointer + i;
+
+    return 0;
+  }
+
+  @Override
+  public void memset(long pointer, byte val, long len) {
+    ByteVector fill = ByteVector.broadcast(BYTES, val);
+    int step        = BYTES.length();
+    long i          = 0;
+
+    for (; i <= len - step; i += step)
+      fill.intoMemorySegment(ALL, pointer + i, ORDER);
+
+    for (; i < len; i++)
+      ALL.set(ValueLayout.JAVA_BYTE, pointer + i, val);
+  }
+
+  @Override
+  public long popcount(long pointer, long len) {
+    LongVector sum = LongVector.zero(LONGS);
+    int step       = LONGS.vectorByteSize();
+    long i         = 0;
+
+    for (; i <= len - step; i += step)
+      sum = sum.add(LongVector.fromMemorySegment(LONGS, ALL, pointer + i, ORDER)
+                              .lanewise(VectorOperators.BIT_COUNT));
+
+    long count = sum.reduceLanes(VectorOperators.ADD);
+
+    for (; i < len; i++)
+      count += Integer.bitCount(get(pointer + i) & 0xFF);
+
+    return count;
+  }
+
+  private static byte get(long pointer) {
+    return ALL.get(ValueLayout.JAVA_BYTE, pointer);
+  }
+}
@@ -0,0 +1,33 @@
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Helper methods and data structures for manipulating off-heap memory
+ * using {@code sun.misc.Unsafe}.
+ *
+ * <p>On JDK 22 and above the Vector API implementation of {@code VectorOps}
+ * is also packaged, used when {@code jdk.incubator.vector} is added with
+ * {@code --add-modules}.
+ */
+module com.memoryutils {
+  requires jdk.unsupported;
+  requires java.management;
+  requires static jdk.jfr;
+  requires static jdk.incubator.vector;
+
+  exports com.memoryutils;
+}
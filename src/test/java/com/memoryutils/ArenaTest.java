@@ -0,0 +1,135 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link Arena}.
+ *
+ * @author  Jack Green (ja-green)
+ */
+class ArenaTest {
+
+  @Test
+  void allocations_are_aligned_and_do_not_overlap() {
+    try (Arena arena = new Arena(1024)) {
+      List<long[]> blocks = new ArrayList<>();
+
+      for (int i = 0; i < 500; i++) {
+        long bytes   = 1 + (i * 37) % 300;
+        long pointer = arena.alloc(bytes);
+
+        assertEquals(0, pointer & 7);
+
+        Memory.memset(pointer, (byte) i, bytes);
+        blocks.add(new long[] { pointer, bytes, i });
+      }
+
+      for (long[] block : blocks)
+        for (long i = 0; i < block[1]; i++)
+          assertEquals((byte) block[2], Memory.memget_b(block[0] + i));
+    }
+  }
+
+  @Test
+  void calloc_zeroes() {
+    try (Arena arena = new Arena(1024)) {
+      long dirty = arena.alloc(512);
+      Memory.memset(dirty, (byte) -1, 512);
+      arena.reset();
+
+      long pointer = arena.calloc(512);
+
+      for (int i = 0; i < 512; i++)
+        assertEquals(0, Memory.memget_b(pointer + i));
+    }
+  }
+
+  @Test
+  void reset_keeps_only_the_first_chunk() {
+    try (Arena arena = new Arena(1024)) {
+      long first = arena.alloc(8);
+
+      for (int i = 0; i < 10; i++)
+        arena.alloc(1000);
+
+      /*
+       * The first 1000 bytes fit after the first 8.
+       */
+      assertEquals(10 * 1024, arena.capacity());
+
+      arena.reset();
+
+      assertEquals(1024, arena.capacity());
+      assertEquals(first, arena.alloc(8));
+    }
+  }
+
+  @Test
+  void oversized_requests_get_a_dedicated_chunk() {
+    try (Arena arena = new Arena(1024)) {
+      arena.alloc(5000);
+
+      assertEquals(5000, arena.capacity());
+
+      long first = arena.alloc(8);
+      long next  = arena.alloc(8);
+
+      arena.alloc(5000);
+
+      /*
+       * The current chunk is not retired by the second oversized request.
+       */
+      assertEquals(next + 8, arena.alloc(8));
+      assertEquals(first + 8, next);
+      assertEquals(2 * 5000 + 1024, arena.capacity());
+
+      arena.reset();
+
+      assertEquals(1024, arena.capacity());
+      assertEquals(first, arena.alloc(8));
+    }
+
+    Arena arena = new Arena(1024);
+
+    arena.alloc(5000);
+    arena.reset();
+
+    assertEquals(0, arena.capacity());
+    arena.close();
+  }
+
+  @Test
+  void close_releases_everything() {
+    Arena arena = new Arena(1024);
+
+    arena.alloc(100);
+    arena.close();
+
+    assertEquals(0, arena.capacity());
+
+    arena.alloc(100);
+    assertEquals(1024, arena.capacity());
+    arena.close();
+  }
+}
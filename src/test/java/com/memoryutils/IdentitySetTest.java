@@ -0,0 +1,68 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link IdentitySet} against an identity based {@link Set}, through
+ * many resizes with removals interleaved.
+ *
+ * @author  Jack Green (ja-green)
+ */
+class IdentitySetTest {
+  @Test
+  void matches_an_identity_set_through_growth_and_removal() {
+    Random      random  = new Random(7);
+    Object[]    objects = new Object[5_000];
+    Set<Object> model   = Collections.newSetFromMap(new IdentityHashMap<>());
+    IdentitySet set     = new IdentitySet(4);
+
+    for (int i = 0; i < objects.length; i++)
+      objects[i] = new Object();
+
+    for (int i = 0; i < 200_000; i++) {
+      Object o = objects[random.nextInt(objects.length)];
+
+      switch (random.nextInt(3)) {
+        case 0:
+          assertEquals(model.add(o), set.add(o));
+          break;
+
+        case 1:
+          assertEquals(model.remove(o), set.remove(o));
+          break;
+
+        default:
+          assertEquals(model.contains(o), set.contains(o, IdentitySet.hash(o)));
+      }
+
+      assertEquals(model.size(), set.size());
+    }
+
+    for (Object o : objects)
+      assertEquals(model.contains(o), set.contains(o, IdentitySet.hash(o)));
+  }
+}
@@ -0,0 +1,234 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link Layout} against the heap, checking field positions against
+ * {@code Unsafe.objectFieldOffset} and sizes against the bytes the JVM
+ * allocates for each instance.
+ *
+ * <p>The surefire executions in the pom also run this class under
+ * {@code -XX:ObjectAlignmentInBytes=16}, {@code -XX:-UseCompressedClassPointers}
+ * and {@code -XX:-UseCompressedOops}.
+ *
+ * @author  Jack Green (ja-green)
+ */
+class LayoutTest {
+
+  static class Q {
+    int    x, y, z;
+    Object a, b;
+  }
+
+  static class Arrays1 {
+    byte   flag;
+    long[] longs;
+    int[]  ints;
+    short  s;
+  }
+
+  static class Base {
+    byte   b;
+    Object ref;
+  }
+
+  static class Derived extends Base {
+    int    i;
+    char[] chars;
+    byte   c;
+  }
+
+  static class MoreDerived extends Derived {
+    long   l;
+    Object other;
+    boolean z;
+  }
+
+  static class Empty {
+  }
+
+  static class Constructed {
+    long     l;
+    Runnable task;
+
+    Constructed(Runnable task, Thread thread, int i) {
+      this.task = task;
+      this.l    = thread.getId() + i;
+    }
+  }
+
+  private static final Class<?>[] CLASSES = {
+    Q.class, Arrays1.class, Base.class, Derived.class, MoreDerived.class, Empty.class
+  };
+
+  @SuppressWarnings("unchecked")
+  private static final Supplier<Object>[] FACTORIES = new Supplier[] {
+    Q::new, Arrays1::new, Base::new, Derived::new, MoreDerived::new, Empty::new
+  };
+
+  @Test
+  void positions_are_the_heap_offsets() {
+    for (Class<?> clazz : CLASSES) {
+      Layout layout = Layout.of(clazz);
+      long[] ends   = new long[layout.kinds.length];
+
+      for (int i = 0; i < layout.kinds.length; i++) {
+        Field field = layout.fields[i];
+
+        assertEquals(Memory.UNSAFE.objectFieldOffset(field), layout.positions[i], field.toString());
+        assertTrue(layout.positions[i] >= Layout.HEADER, field.toString());
+
+        ends[i] = layout.positions[i] + Layout.width(layout.kinds[i]);
+        assertTrue(ends[i] <= layout.size, field.toString());
+      }
+
+      /*
+       * No two fields overlap.
+       */
+      for (int i = 0; i < ends.length; i++)
+        for (int j = i + 1; j < ends.length; j++)
+          assertTrue(ends[i] <= layout.positions[j] || ends[j] <= layout.positions[i],
+            layout.fields[i] + " overlaps " + layout.fields[j]);
+    }
+  }
+
+  @Test
+  void references_are_reference_wide() {
+    assertEquals(Memory.UNSAFE.arrayIndexScale(Object[].class), Layout.REFERENCE);
+
+    for (int kind = Layout.A_LONG; kind <= Layout.OBJECT; kind++)
+      assertEquals(Layout.REFERENCE, Layout.width(kind));
+  }
+
+  /*
+   * The bytes the JVM allocates for each of many instances is the
+   * instance size, as every allocation is rounded to the alignment.
+   */
+  @Test
+  void sizes_match_the_heap() {
+    for (int c = 0; c < CLASSES.length; c++) {
+      Class<?> clazz    = CLASSES[c];
+      Object   instance = FACTORIES[c].get();
+
+      assertEquals(clazz, instance.getClass());
+      assertEquals(allocated(FACTORIES[c]), Layout.of(clazz).size, clazz.getName());
+      assertEquals(Layout.of(clazz).size, Memory.sizeof(instance), clazz.getName());
+      assertEquals(Layout.of(clazz).size, Memory.sizeof(clazz), clazz.getName());
+      assertEquals(0, Layout.of(clazz).size % Layout.ALIGNMENT, clazz.getName());
+    }
+  }
+
+  /*
+   * A class is sized without creating an instance, so constructors
+   * taking parameters neither fail nor print anything.
+   */
+  @Test
+  void classes_are_sized_without_an_instance() {
+    PrintStream           out    = System.out;
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    System.setOut(new PrintStream(output));
+
+    try {
+      assertEquals(Layout.of(Constructed.class).size, Memory.sizeof(Constructed.class));
+      assertEquals(Memory.sizeof(new Constructed(null, Thread.currentThread(), 0)), Memory.sizeof(Constructed.class));
+
+    } finally {
+      System.setOut(out);
+    }
+
+    assertEquals(0, output.size());
+    assertEquals(8, Memory.sizeof(long.class));
+    assertEquals(1, Memory.sizeof(boolean.class));
+  }
+
+  private static long allocated(Supplier<Object> factory) {
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    int      n         = 100_000;
+    Object[] instances = new Object[n];
+    long     thread    = Thread.currentThread().getId();
+    long     bytes     = 0;
+
+    /*
+     * The first run warms up the factory, the instances are kept
+     * reachable so that none of the allocations can be removed.
+     */
+    for (int run = 0; run < 2; run++) {
+      long before = threads.getThreadAllocatedBytes(thread);
+
+      for (int i = 0; i < n; i++)
+        instances[i] = factory.get();
+
+      bytes = threads.getThreadAllocatedBytes(thread) - before;
+    }
+
+    assertTrue(instances[n - 1] != null);
+
+    return Math.round((double) bytes / n);
+  }
+
+  /*
+   * Writing a reference slot of an off-heap copy must not touch any
+   * other field, or the bytes after the copy.
+   */
+  @Test
+  void reference_slots_do_not_overlap_their_neighbours() {
+    Q q = new Q();
+
+    q.x = 0x11111111;
+    q.y = 0x22222222;
+    q.z = 0x33333333;
+
+    Layout layout = Layout.of(Q.class);
+    long   size   = Memory.sizeof(q);
+    long   p      = Memory.malloc(size + 8);
+
+    Memory.memset(p, (byte) 0, size);
+    Memory.memput(p, q);
+    Memory.memput(p + size, 0x5555555555555555L);
+
+    int a = layout.index("a");
+    int b = layout.index("b");
+
+    Memory.memput_field(p, Q.class, a, -1L);
+
+    assertEquals(0x11111111, Memory.memget_field(p, Q.class, "x"));
+    assertEquals(0x22222222, Memory.memget_field(p, Q.class, "y"));
+    assertEquals(0x33333333, Memory.memget_field(p, Q.class, "z"));
+    assertEquals(0L, Memory.memget_field(p, Q.class, b));
+    assertEquals(0x5555555555555555L, Memory.memget_l(p + size));
+
+    Memory.memput_field(p, Q.class, b, -1L);
+
+    assertEquals(0x5555555555555555L, Memory.memget_l(p + size));
+    assertEquals(Layout.REFERENCE == 4 ? 0xFFFFFFFFL : -1L, Memory.memget_field(p, Q.class, a));
+
+    Memory.free(p);
+  }
+}
@@ -0,0 +1,101 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link LongLongHashMap} against {@link HashMap}, through many
+ * incremental resizes with removals interleaved.
+ *
+ * @author  Jack Green (ja-green)
+ */
+class LongLongHashMapTest {
+  private static final long MISSING = -1;
+
+  @Test
+  void matches_a_hash_map_through_growth_and_removal() {
+    Random          random = new Random(7);
+    Map<Long, Long> model  = new HashMap<>();
+
+    try (LongLongHashMap map = new LongLongHashMap(4, 0.75, MISSING)) {
+      for (int i = 0; i < 200_000; i++) {
+        long key   = random.nextInt(50_000) - 100;
+        long value = random.nextLong();
+
+        switch (random.nextInt(4)) {
+          case 0:
+          case 1:
+            Long old = model.put(key, value);
+            assertEquals(old == null ? MISSING : old, map.put(key, value));
+            break;
+
+          case 2:
+            Long removed = model.remove(key);
+            assertEquals(removed == null ? MISSING : removed, map.remove(key));
+            break;
+
+          default:
+            Long expected = model.get(key);
+            assertEquals(expected == null ? MISSING : expected, map.get(key));
+            assertEquals(expected != null, map.contains(key));
+        }
+
+        assertEquals(model.size(), map.size());
+      }
+
+      for (Map.Entry<Long, Long> entry : model.entrySet())
+        assertEquals((long) entry.getValue(), map.get(entry.getKey()));
+    }
+  }
+
+  @Test
+  void zero_is_an_ordinary_key() {
+    try (LongLongHashMap map = new LongLongHashMap()) {
+      assertEquals(0, map.get(0));
+      assertEquals(0, map.put(0, 5));
+      assertEquals(5, map.get(0));
+      assertEquals(1, map.size());
+      assertEquals(5, map.remove(0));
+      assertEquals(0, map.size());
+    }
+  }
+
+  @Test
+  void clustered_keys_survive_resizing() {
+    try (LongLongHashMap map = new LongLongHashMap(2, 0.5, MISSING)) {
+      for (long key = 1; key <= 100_000; key++)
+        map.put(key << 20, key);
+
+      for (long key = 1; key <= 100_000; key += 2)
+        assertEquals(key, map.remove(key << 20));
+
+      for (long key = 1; key <= 100_000; key++)
+        assertEquals((key & 1) == 0 ? key : MISSING, map.get(key << 20));
+
+      map.clear();
+      assertEquals(0, map.size());
+      assertEquals(MISSING, map.get(2 << 20));
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests {@link MemoryMetrics} through its MXBean, which is only registered
+ * in the {@code metrics} surefire execution.
+ *
+ * @author  Jack Green (ja-green)
+ */
+class MemoryMetricsTest {
+  private static long get(String attribute) throws JMException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    return (Long) server.getAttribute(new ObjectName(MemoryMetrics.NAME), attribute);
+  }
+
+  @Test
+  void counts_allocations_reallocations_and_frees() throws JMException {
+    assumeTrue(MemoryMetrics.enabled());
+
+    long allocated = get("AllocatedBytes");
+    long freed     = get("FreedBytes");
+    long live      = get("LiveBytes");
+    long count     = get("AllocationCount");
+    long frees     = get("FreeCount");
+    long reallocs  = get("ReallocCount");
+
+    long p = Memory.malloc(100);
+    long q = Memory.calloc(3 * Memory.MEGABYTE);
+
+    assertEquals(allocated + 100 + 3 * Memory.MEGABYTE, get("AllocatedBytes"));
+    assertEquals(live + 100 + 3 * Memory.MEGABYTE, get("LiveBytes"));
+    assertEquals(count + 2, get("AllocationCount"));
+    assertTrue(get("LargestAllocation") >= 3 * Memory.MEGABYTE);
+
+    for (int i = 0; i < 100; i++)
+      Memory.memput(p + i, (byte) i);
+
+    p = Memory.realloc(p, 5000);
+
+    for (int i = 0; i < 100; i++)
+      assertEquals((byte) i, Memory.memget_b(p + i));
+
+    assertEquals(allocated + 5100 + 3 * Memory.MEGABYTE, get("AllocatedBytes"));
+    assertEquals(freed + 100, get("FreedBytes"));
+    assertEquals(live + 5000 + 3 * Memory.MEGABYTE, get("LiveBytes"));
+    assertEquals(count + 2, get("AllocationCount"));
+    assertEquals(reallocs + 1, get("ReallocCount"));
+
+    Memory.free(p);
+    Memory.free(q);
+
+    assertEquals(freed + 5100 + 3 * Memory.MEGABYTE, get("FreedBytes"));
+    assertEquals(live, get("LiveBytes"));
+    assertEquals(frees + 2, get("FreeCount"));
+
+    /*
+     * Re-sizing to zero frees the block.
+     */
+    assertEquals(0, Memory.realloc(Memory.malloc(10), 0));
+    assertEquals(live, get("LiveBytes"));
+    assertEquals(frees + 3, get("FreeCount"));
+  }
+
+  @Test
+  void measures_the_allocation_rate() throws JMException, InterruptedException {
+    assumeTrue(MemoryMetrics.enabled());
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName  name   = new ObjectName(MemoryMetrics.NAME);
+
+    /*
+     * Starts a fresh sample, then allocates during it.
+     */
+    Thread.sleep(1100);
+    server.getAttribute(name, "AllocationRate");
+
+    long p = Memory.malloc(10 * Memory.MEGABYTE);
+
+    Thread.sleep(1100);
+
+    double rate = (Double) server.getAttribute(name, "AllocationRate");
+
+    Memory.free(p);
+
+    assertTrue(rate > 0 && rate <= 10 * Memory.MEGABYTE / 1.1, String.valueOf(rate));
+  }
+}
@@ -0,0 +1,705 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests the byte searching, comparison and copying primitives of {@link Memory}
+ * against straightforward byte at a time versions, over every alignment of the
+ * start and end of the range, along with its allocation, object, bulk array
+ * and atomic access methods.
+ *
+ * @author  Jack Green (ja-green)
+ */
+class MemoryTest {
+  private static final int BYTES = 256;
+
+  private final Random random = new Random(42);
+
+  private long buffer;
+  private long other;
+
+  @BeforeEach
+  void allocate() {
+    buffer = Memory.malloc(BYTES);
+    other  = Memory.malloc(BYTES);
+  }
+
+  @AfterEach
+  void free() {
+    Memory.free(buffer);
+    Memory.free(other);
+  }
+
+  /*
+   * Fills the buffer with bytes likely to trip up word at a time searches,
+   * those next to the searched for byte and those with the high bit set,
+   * but never the searched for byte itself.
+   */
+  private void fill(long pointer, byte val) {
+    byte[] nasty = { (byte) (val + 1), (byte) (val - 1), (byte) (val ^ 0x80), (byte) 0x80, (byte) 0xFF, 0x7F, 0x01 };
+
+    for (int i = 0; i < BYTES; ) {
+      byte b = nasty[random.nextInt(nasty.length)];
+
+      if (b != val)
+        Memory.memput(pointer + i++, b);
+    }
+  }
+
+  private static long naive_memchr(long pointer, byte val, long len) {
+    for (long i = 0; i < len; i++)
+      if (Memory.memget_b(pointer + i) == val) return pointer + i;
+
+    return 0;
+  }
+
+  private static long naive_memrchr(long pointer, byte val, long len) {
+    for (long i = len - 1; i >= 0; i--)
+      if (Memory.memget_b(pointer + i) == val) return pointer + i;
+
+    return 0;
+  }
+
+  @Test
+  void memchr_finds_the_first_match_at_every_alignment() {
+    for (byte val : new byte[] { 0, 1, 0x7F, (byte) 0x80, (byte) 0xFF }) {
+      for (int start = 0; start < 8; start++) {
+        for (int len = 0; len < 64; len++) {
+          fill(buffer, val);
+
+          long p = buffer + start;
+
+          assertEquals(0, Memory.memchr(p, val, len));
+
+          for (int at = 0; at < len; at++) {
+            Memory.memput(p + at, val);
+
+            assertEquals(naive_memchr(p, val, len), Memory.memchr(p, val, len));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void memchr_searches_long_ranges() {
+    fill(buffer, (byte) 9);
+    Memory.memput(buffer + 200, (byte) 9);
+    Memory.memput(buffer + 230, (byte) 9);
+
+    assertEquals(buffer + 200, Memory.memchr(buffer, (byte) 9, BYTES));
+    assertEquals(buffer + 230, Memory.memrchr(buffer, (byte) 9, BYTES));
+    assertEquals(0, Memory.memchr(buffer, (byte) 9, 200));
+  }
+
+  @Test
+  void memrchr_finds_the_last_match_at_every_alignment() {
+    for (byte val : new byte[] { 0, 1, (byte) 0x80, (byte) 0xFF }) {
+      for (int start = 0; start < 8; start++) {
+        for (int len = 0; len < 64; len++) {
+          fill(buffer, val);
+
+          long p = buffer + start;
+
+          assertEquals(0, Memory.memrchr(p, val, len));
+
+          for (int at = len - 1; at >= 0; at--) {
+            Memory.memput(p + at, val);
+
+            assertEquals(naive_memrchr(p, val, len), Memory.memrchr(p, val, len));
+          }
+        }
+      }
+    }
+  }
+
+  private static long naive_popcount(long pointer, long len) {
+    long count = 0;
+
+    for (long i = 0; i < len; i++)
+      count += Long.bitCount(Memory.memget_b(pointer + i) & 0xFFL);
+
+    return count;
+  }
+
+  @Test
+  void popcount_counts_set_bits_at_every_alignment() {
+    for (int fill = 0; fill < 3; fill++) {
+      for (int start = 0; start < 8; start++) {
+        for (int len = 0; len <= BYTES - 8; len++) {
+          for (int i = 0; i < BYTES; i++)
+            Memory.memput(buffer + i, (fill == 0) ? (byte) random.nextInt() : (fill == 1) ? (byte) 0xFF : (byte) 0);
+
+          long p = buffer + start;
+
+          assertEquals(naive_popcount(p, len), Memory.popcount(p, len));
+        }
+      }
+    }
+  }
+
+  @Test
+  void strlen_counts_to_the_first_null_byte() {
+    for (int start = 0; start < 8; start++) {
+      for (int len = 0; len < 100; len++) {
+        for (int i = 0; i < BYTES; i++)
+          Memory.memput(buffer + i, (byte) (1 + random.nextInt(255)));
+
+        Memory.memput(buffer + start + len, (byte) 0);
+
+        assertEquals(len, Memory.strlen(buffer + start));
+      }
+    }
+  }
+
+  @Test
+  void memcmp_lex_orders_by_the_first_differing_unsigned_byte() {
+    for (int len = 0; len < 40; len++) {
+      for (int at = 0; at < len; at++) {
+        for (int i = 0; i < len; i++) {
+          byte b = (byte) random.nextInt();
+
+          Memory.memput(buffer + i, b);
+          Memory.memput(other + i, b);
+        }
+
+        assertEquals(0, Memory.memcmp_lex(buffer, other, len));
+
+        byte a = (byte) random.nextInt();
+        byte b = (byte) (a + 1 + random.nextInt(255));
+
+        Memory.memput(buffer + at, a);
+        Memory.memput(other + at, b);
+
+        /*
+         * Later bytes must not affect the order.
+         */
+        if (at + 1 < len) {
+          Memory.memput(buffer + at + 1, (byte) 0x00);
+          Memory.memput(other + at + 1, (byte) 0xFF);
+        }
+
+        int expected = Integer.signum(Integer.compare(a & 0xFF, b & 0xFF));
+
+        assertEquals(expected, Integer.signum(Memory.memcmp_lex(buffer, other, len)));
+        assertEquals(-expected, Integer.signum(Memory.memcmp_lex(other, buffer, len)));
+      }
+    }
+  }
+
+  @Test
+  void memmove_copies_overlapping_ranges_in_both_directions() {
+    byte[] model = new byte[BYTES];
+
+    for (int src = 0; src < 40; src += 3) {
+      for (int dest = 0; dest < 40; dest += 5) {
+        for (int len : new int[] { 0, 1, 7, 8, 9, 31, 64, 150 }) {
+          random.nextBytes(model);
+
+          for (int i = 0; i < BYTES; i++)
+            Memory.memput(buffer + i, model[i]);
+
+          System.arraycopy(model, src, model, dest, len);
+          Memory.memmove(buffer + dest, buffer + src, len);
+
+          assertArrayEquals(model, Memory.memget_a(buffer, BYTES));
+        }
+      }
+    }
+  }
+
+  @Test
+  void malloc_aligned_aligns_and_realloc_keeps_contents() {
+    for (long alignment = 8; alignment <= 8192; alignment <<= 1) {
+      long p = Memory.malloc_aligned(100, alignment);
+
+      assertEquals(0, p & (alignment - 1));
+
+      for (int i = 0; i < 100; i++)
+        Memory.memput(p + i, (byte) i);
+
+      for (long bytes : new long[] { 1000, 60, 5000 }) {
+        p = Memory.realloc_aligned(p, bytes);
+
+        assertEquals(0, p & (alignment - 1));
+
+        for (int i = 0; i < 60; i++)
+          assertEquals((byte) i, Memory.memget_b(p + i));
+      }
+
+      Memory.free_aligned(p);
+    }
+  }
+
+  @Test
+  void calloc_aligned_zeroes() {
+    long p = Memory.calloc_aligned(4096, Memory.PAGE_SIZE);
+
+    assertEquals(0, p % Memory.PAGE_SIZE);
+    assertTrue(Memory.memchr(p, (byte) 0, 4096) == p);
+
+    for (int i = 0; i < 4096; i++)
+      assertEquals(0, Memory.memget_b(p + i));
+
+    Memory.free_aligned(p);
+  }
+
+  static class Point {
+    long   x;
+    int    y;
+    short  z;
+    byte   w;
+  }
+
+  static class Named {
+    int    id;
+    byte[] name;
+  }
+
+  @Test
+  void memget_object_reads_back_primitive_fields() {
+    Point a = new Point();
+
+    a.x = 1L << 40;
+    a.y = -2;
+    a.z = 3;
+    a.w = 4;
+
+    long p = Memory.malloc(Memory.sizeof(a));
+
+    Memory.memput(p, a);
+
+    Point b = (Point) Memory.memget_object(p, Point.class);
+
+    assertEquals(a.x, b.x);
+    assertEquals(a.y, b.y);
+    assertEquals(a.z, b.z);
+    assertEquals(a.w, b.w);
+
+    Memory.free(p);
+  }
+
+  static class Link {
+    long   id;
+    Link   next;
+    Object other;
+  }
+
+  @Test
+  void sizeof_rejects_objects_reaching_themselves() {
+    Link a = new Link();
+
+    a.next = a;
+    assertThrows(IllegalArgumentException.class, () -> Memory.sizeof(a));
+
+    Link b = new Link();
+    Link c = new Link();
+
+    b.next  = c;
+    c.other = b;
+    assertThrows(IllegalArgumentException.class, () -> Memory.sizeof(b));
+  }
+
+  @Test
+  void sizeof_counts_shared_objects_once_per_reference() {
+    Link shared = new Link();
+    Link a      = new Link();
+    Link b      = new Link();
+
+    a.next  = b;
+    a.other = shared;
+    b.next  = shared;
+
+    Link copy = new Link();
+
+    copy.next      = new Link();
+    copy.other     = new Link();
+    copy.next.next = new Link();
+
+    assertEquals(Memory.sizeof(copy), Memory.sizeof(a));
+  }
+
+  @Test
+  void memget_object_rejects_non_primitive_fields() {
+    long p = Memory.malloc(64);
+
+    assertThrows(IllegalArgumentException.class, () -> Memory.memget_object(p, Named.class));
+
+    Memory.free(p);
+  }
+
+  @Test
+  void mmap_writes_through_to_the_file() throws IOException {
+    Path path = Files.createTempFile("memoryutil", ".bin");
+
+    try {
+      long p = Memory.mmap(path, 0, 4096, MapMode.READ_WRITE);
+
+      Memory.memput(p + 4088, 0x1122334455667788L);
+      Memory.msync(p);
+
+      p = Memory.mremap(p, 8192);
+
+      assertEquals(0x1122334455667788L, Memory.memget_l(p + 4088));
+      Memory.munmap(p);
+
+      assertEquals(8192, Files.size(path));
+
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  void mmap_rejects_regions_over_the_limit() throws IOException {
+    assumeTrue(MappedRegion.MAX_LENGTH < Long.MAX_VALUE);
+
+    Path path = Files.createTempFile("memoryutil", ".bin");
+
+    try {
+      assertThrows(IllegalArgumentException.class,
+        () -> Memory.mmap(path, 0, MappedRegion.MAX_LENGTH + 1, MapMode.READ_WRITE));
+
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  void malloc_huge_is_aligned_and_usable() {
+    long bytes = 3 * Memory.MEGABYTE;
+    long p     = Memory.malloc_huge(bytes);
+
+    assertEquals(0, p % HugePages.SIZE);
+
+    for (long i = 0; i < bytes; i += Memory.PAGE_SIZE)
+      Memory.memput(p + i, i);
+
+    for (long i = 0; i < bytes; i += Memory.PAGE_SIZE)
+      assertEquals(i, Memory.memget_l(p + i));
+
+    Memory.free_huge(p);
+  }
+
+  @Test
+  void atomics_return_the_previous_values() {
+    Memory.memput(buffer + 4, 0x5A5A5A5A);
+    Memory.memput(buffer + 8, -1L);
+
+    Memory.memput(buffer, 5);
+    assertTrue(Memory.cas(buffer, 5, 6));
+    assertFalse(Memory.cas(buffer, 5, 7));
+    assertEquals(6, Memory.get_volatile_i(buffer));
+    assertEquals(6, Memory.get_and_add(buffer, 10));
+    assertEquals(16, Memory.get_and_add(buffer, -20));
+    assertEquals(-4, Memory.get_and_set(buffer, 9));
+    assertEquals(9, Memory.get_acquire_i(buffer));
+
+    Memory.put_volatile(buffer, 1);
+    assertEquals(1, Memory.memget_i(buffer));
+    Memory.put_ordered(buffer, 2);
+    assertEquals(2, Memory.get_volatile_i(buffer));
+    Memory.put_release(buffer, 3);
+    assertEquals(3, Memory.get_acquire_i(buffer));
+
+    /*
+     * The int methods must leave the rest of the word alone.
+     */
+    assertEquals(0x5A5A5A5A, Memory.memget_i(buffer + 4));
+    assertEquals(-1L, Memory.memget_l(buffer + 8));
+
+    Memory.memput(buffer, 1L << 40);
+    assertTrue(Memory.cas(buffer, 1L << 40, 1L << 41));
+    assertFalse(Memory.cas(buffer, 1L << 40, 0L));
+    assertEquals(1L << 41, Memory.get_volatile_l(buffer));
+    assertEquals(1L << 41, Memory.get_and_add(buffer, 1L << 41));
+    assertEquals(1L << 42, Memory.get_and_add(buffer, -(1L << 43)));
+    assertEquals(-(1L << 42), Memory.get_and_set(buffer, 9L));
+    assertEquals(9L, Memory.get_acquire_l(buffer));
+
+    Memory.put_volatile(buffer, 1L << 50);
+    assertEquals(1L << 50, Memory.memget_l(buffer));
+    Memory.put_ordered(buffer, 2L << 50);
+    assertEquals(2L << 50, Memory.get_volatile_l(buffer));
+    Memory.put_release(buffer, 3L << 50);
+    assertEquals(3L << 50, Memory.get_acquire_l(buffer));
+    assertEquals(-1L, Memory.memget_l(buffer + 8));
+
+    Memory.load_fence();
+    Memory.store_fence();
+    Memory.full_fence();
+  }
+
+  @Test
+  void get_and_add_counts_exactly_across_threads() throws InterruptedException {
+    int            threads = 8;
+    int            adds    = 100_000;
+    Thread[]       workers = new Thread[threads];
+    CountDownLatch start   = new CountDownLatch(1);
+
+    Memory.memput(buffer, 0L);
+    Memory.memput(buffer + 8, 0);
+
+    for (int t = 0; t < threads; t++) {
+      workers[t] = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException ex) {
+          return;
+        }
+
+        for (int i = 0; i < adds; i++) {
+          Memory.get_and_add(buffer, 3L);
+          Memory.get_and_add(buffer + 8, 1);
+        }
+      });
+
+      workers[t].start();
+    }
+
+    start.countDown();
+
+    for (Thread worker : workers)
+      worker.join();
+
+    assertEquals(3L * threads * adds, Memory.get_volatile_l(buffer));
+    assertEquals(threads * adds, Memory.get_volatile_i(buffer + 8));
+  }
+
+  /*
+   * Element counts for the bulk copies, the last making each copy just over
+   * the 1 MB chunk copied by a single call, whatever the element width.
+   */
+  private static int[] counts(int width) {
+    return new int[] { 0, 1, 13, 256, (int) (Memory.MEGABYTE / width) + 13 };
+  }
+
+  @Test
+  void memput_and_memget_round_trip_long_arrays() {
+    for (int count : counts(8)) {
+      long[] src  = new long[count + 10];
+      long[] dest = new long[count + 10];
+
+      for (int i = 0; i < src.length; i++)
+        src[i] = random.nextLong();
+
+      long p = Memory.malloc(Math.max(1, (long) count * 8));
+
+      Memory.memput(src, 5, p, count);
+
+      for (int i = 0; i < count; i += 1 + count / 64)
+        assertEquals(src[5 + i], Memory.memget_l(p + (long) i * 8));
+
+      Memory.memget(p, dest, 3, count);
+
+      assertArrayEquals(Arrays.copyOfRange(src, 5, 5 + count), Arrays.copyOfRange(dest, 3, 3 + count));
+      assertArrayEquals(new long[3], Arrays.copyOfRange(dest, 0, 3));
+      assertArrayEquals(new long[7], Arrays.copyOfRange(dest, 3 + count, count + 10));
+
+      Memory.free(p);
+    }
+  }
+
+  @Test
+  void memput_and_memget_round_trip_double_arrays() {
+    for (int count : counts(8)) {
+      double[] src  = new double[count + 10];
+      double[] dest = new double[count + 10];
+
+      for (int i = 0; i < src.length; i++)
+        src[i] = random.nextDouble();
+
+      long p = Memory.malloc(Math.max(1, (long) count * 8));
+
+      Memory.memput(src, 5, p, count);
+
+      Memory.memget(p, dest, 3, count);
+
+      assertArrayEquals(Arrays.copyOfRange(src, 5, 5 + count), Arrays.copyOfRange(dest, 3, 3 + count));
+      assertArrayEquals(new double[3], Arrays.copyOfRange(dest, 0, 3));
+      assertArrayEquals(new double[7], Arrays.copyOfRange(dest, 3 + count, count + 10));
+
+      Memory.free(p);
+    }
+  }
+
+  @Test
+  void memput_and_memget_round_trip_int_arrays() {
+    for (int count : counts(4)) {
+      int[] src  = new int[count + 10];
+      int[] dest = new int[count + 10];
+
+      for (int i = 0; i < src.length; i++)
+        src[i] = random.nextInt();
+
+      long p = Memory.malloc(Math.max(1, (long) count * 4));
+
+      Memory.memput(src, 5, p, count);
+
+      for (int i = 0; i < count; i += 1 + count / 64)
+        assertEquals(src[5 + i], Memory.memget_i(p + (long) i * 4));
+
+      Memory.memget(p, dest, 3, count);
+
+      assertArrayEquals(Arrays.copyOfRange(src, 5, 5 + count), Arrays.copyOfRange(dest, 3, 3 + count));
+      assertArrayEquals(new int[3], Arrays.copyOfRange(dest, 0, 3));
+      assertArrayEquals(new int[7], Arrays.copyOfRange(dest, 3 + count, count + 10));
+
+      Memory.free(p);
+    }
+  }
+
+  @Test
+  void memput_and_memget_round_trip_float_arrays() {
+    for (int count : counts(4)) {
+      float[] src  = new float[count + 10];
+      float[] dest = new float[count + 10];
+
+      for (int i = 0; i < src.length; i++)
+        src[i] = random.nextFloat();
+
+      long p = Memory.malloc(Math.max(1, (long) count * 4));
+
+      Memory.memput(src, 5, p, count);
+
+      Memory.memget(p, dest, 3, count);
+
+      assertArrayEquals(Arrays.copyOfRange(src, 5, 5 + count), Arrays.copyOfRange(dest, 3, 3 + count));
+      assertArrayEquals(new float[3], Arrays.copyOfRange(dest, 0, 3));
+      assertArrayEquals(new float[7], Arrays.copyOfRange(dest, 3 + count, count + 10));
+
+      Memory.free(p);
+    }
+  }
+
+  @Test
+  void memput_and_memget_round_trip_short_arrays() {
+    for (int count : counts(2)) {
+      short[] src  = new short[count + 10];
+      short[] dest = new short[count + 10];
+
+      for (int i = 0; i < src.length; i++)
+        src[i] = (short) random.nextInt();
+
+      long p = Memory.malloc(Math.max(1, (long) count * 2));
+
+      Memory.memput(src, 5, p, count);
+
+      for (int i = 0; i < count; i += 1 + count / 64)
+        assertEquals(src[5 + i], Memory.memget_s(p + (long) i * 2));
+
+      Memory.memget(p, dest, 3, count);
+
+      assertArrayEquals(Arrays.copyOfRange(src, 5, 5 + count), Arrays.copyOfRange(dest, 3, 3 + count));
+      assertArrayEquals(new short[3], Arrays.copyOfRange(dest, 0, 3));
+      assertArrayEquals(new short[7], Arrays.copyOfRange(dest, 3 + count, count + 10));
+
+      Memory.free(p);
+    }
+  }
+
+  @Test
+  void memput_and_memget_round_trip_char_arrays() {
+    for (int count : counts(2)) {
+      char[] src  = new char[count + 10];
+      char[] dest = new char[count + 10];
+
+      for (int i = 0; i < src.length; i++)
+        src[i] = (char) random.nextInt();
+
+      long p = Memory.malloc(Math.max(1, (long) count * 2));
+
+      Memory.memput(src, 5, p, count);
+
+      Memory.memget(p, dest, 3, count);
+
+      assertArrayEquals(Arrays.copyOfRange(src, 5, 5 + count), Arrays.copyOfRange(dest, 3, 3 + count));
+      assertArrayEquals(new char[3], Arrays.copyOfRange(dest, 0, 3));
+      assertArrayEquals(new char[7], Arrays.copyOfRange(dest, 3 + count, count + 10));
+
+      Memory.free(p);
+    }
+  }
+
+  @Test
+  void memput_and_memget_round_trip_byte_arrays() {
+    for (int count : counts(1)) {
+      byte[] src  = new byte[count + 10];
+      byte[] dest = new byte[count + 10];
+
+      for (int i = 0; i < src.length; i++)
+        src[i] = (byte) random.nextInt();
+
+      long p = Memory.malloc(Math.max(1, (long) count * 1));
+
+      Memory.memput(src, 5, p, count);
+
+      for (int i = 0; i < count; i += 1 + count / 64)
+        assertEquals(src[5 + i], Memory.memget_b(p + (long) i * 1));
+
+      Memory.memget(p, dest, 3, count);
+
+      assertArrayEquals(Arrays.copyOfRange(src, 5, 5 + count), Arrays.copyOfRange(dest, 3, 3 + count));
+      assertArrayEquals(new byte[3], Arrays.copyOfRange(dest, 0, 3));
+      assertArrayEquals(new byte[7], Arrays.copyOfRange(dest, 3 + count, count + 10));
+
+      Memory.free(p);
+    }
+  }
+
+  @Test
+  void memput_and_memget_round_trip_boolean_arrays() {
+    for (int count : counts(1)) {
+      boolean[] src  = new boolean[count + 10];
+      boolean[] dest = new boolean[count + 10];
+
+      for (int i = 0; i < src.length; i++)
+        src[i] = random.nextBoolean();
+
+      long p = Memory.malloc(Math.max(1, (long) count * 1));
+
+      Memory.memput(src, 5, p, count);
+
+      Memory.memget(p, dest, 3, count);
+
+      assertArrayEquals(Arrays.copyOfRange(src, 5, 5 + count), Arrays.copyOfRange(dest, 3, 3 + count));
+      assertArrayEquals(new boolean[3], Arrays.copyOfRange(dest, 0, 3));
+      assertArrayEquals(new boolean[7], Arrays.copyOfRange(dest, 3 + count, count + 10));
+
+      Memory.free(p);
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests {@link MemoryTracker}, which is only enabled in the {@code tracked}
+ * surefire execution.
+ *
+ * @author  Jack Green (ja-green)
+ */
+class MemoryTrackerTest {
+  @Test
+  void tracks_allocations_and_frees() {
+    assumeTrue(MemoryTracker.enabled());
+
+    long count = MemoryTracker.live_count();
+    long bytes = MemoryTracker.live_bytes();
+
+    long p = Memory.realloc(Memory.malloc(100), 200);
+
+    assertEquals(count + 1, MemoryTracker.live_count());
+    assertEquals(bytes + 200, MemoryTracker.live_bytes());
+
+    Memory.free(p);
+
+    assertEquals(count, MemoryTracker.live_count());
+    assertThrows(AssertionError.class, () -> Memory.free(p));
+    assertThrows(AssertionError.class, () -> Memory.realloc(p, 8));
+  }
+
+  @Test
+  void failed_realloc_keeps_the_block_tracked() {
+    assumeTrue(MemoryTracker.enabled());
+
+    long p     = Memory.malloc(100);
+    long count = MemoryTracker.live_count();
+
+    assertThrows(OutOfMemoryError.class, () -> Memory.realloc(p, Long.MAX_VALUE >> 1));
+
+    assertEquals(count, MemoryTracker.live_count());
+
+    Memory.free(p);
+  }
+}
@@ -0,0 +1,228 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests {@link Memory#sizeof_deep(Object)} and {@link Memory#sizeof_parallel(Object)}.
+ *
+ * @author  Jack Green (ja-green)
+ */
+class ObjectSizerTest {
+
+  static class Node {
+    Node   next;
+    Object value;
+    long   id;
+  }
+
+  static class Child extends Node {
+    int extra;
+  }
+
+  /*
+   * The random graph built by graph(), every third node being a Child.
+   */
+  private static final int NODES    = 50_000;
+  private static final int CHILDREN = (NODES + 2) / 3;
+
+  @Test
+  void null_has_no_size() {
+    assertEquals(0, Memory.sizeof_deep(null));
+    assertEquals(0, Memory.sizeof_parallel(null).bytes());
+  }
+
+  @Test
+  void sizes_are_aligned_and_cover_the_header() {
+    long size = Memory.sizeof_deep(new Object());
+
+    assertTrue(size >= 8);
+    assertEquals(0, size % 8);
+  }
+
+  @Test
+  void cycles_are_counted_once() {
+    Node node = new Node();
+    node.next = node;
+
+    assertEquals(Memory.sizeof_deep(new Node()), Memory.sizeof_deep(node));
+
+    Node a = new Node();
+    Node b = new Node();
+    a.next = b;
+    b.next = a;
+
+    assertEquals(2 * Memory.sizeof_deep(new Node()), Memory.sizeof_deep(a));
+  }
+
+  @Test
+  void superclass_fields_are_included() {
+    assertTrue(Memory.sizeof_deep(new Child()) >= Memory.sizeof_deep(new Node()));
+
+    Child child = new Child();
+    child.value = new Node();
+
+    assertEquals(Memory.sizeof_deep(new Child()) + Memory.sizeof_deep(new Node()), Memory.sizeof_deep(child));
+  }
+
+  @Test
+  void reference_arrays_count_their_elements_once() {
+    Node     shared = new Node();
+    Object[] array  = { shared, shared, null, new long[4] };
+
+    long expected = Memory.sizeof_deep(new Object[4]) + Memory.sizeof_deep(new Node()) + Memory.sizeof_deep(new long[4]);
+
+    assertEquals(expected, Memory.sizeof_deep(array));
+  }
+
+  @Test
+  void deep_chains_do_not_overflow_the_stack() {
+    Node head = new Node();
+
+    for (int i = 0; i < 1_000_000; i++) {
+      Node node = new Node();
+      node.next = head;
+      head = node;
+    }
+
+    assertEquals(1_000_001 * Memory.sizeof_deep(new Node()), Memory.sizeof_deep(head));
+  }
+
+  private static Object graph() {
+    Random       random = new Random(3);
+    List<Node>   nodes  = new ArrayList<>();
+
+    for (int i = 0; i < NODES; i++)
+      nodes.add((i % 3 == 0) ? new Child() : new Node());
+
+    for (Node node : nodes) {
+      node.next = nodes.get(random.nextInt(nodes.size()));
+
+      if (random.nextInt(10) == 0)
+        node.value = "value " + random.nextInt(1000);
+
+      else if (random.nextInt(50) == 0)
+        node.value = new Node[] { nodes.get(random.nextInt(nodes.size())), null };
+    }
+
+    Map<String, Object> root = new HashMap<>();
+    root.put("nodes", nodes);
+    root.put("first", nodes.get(0));
+
+    return root;
+  }
+
+  @Test
+  void parallel_matches_sequential() {
+    Object graph = graph();
+    long   bytes = Memory.sizeof_deep(graph);
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+
+    try {
+      for (int i = 0; i < 3; i++) {
+        HeapHistogram histogram = Memory.sizeof_parallel(graph, pool);
+
+        assertEquals(bytes, histogram.bytes());
+        assertEquals(NODES - CHILDREN, histogram.count(Node.class));
+        assertEquals(CHILDREN, histogram.count(Child.class));
+        assertEquals(histogram.count(Node.class) * Memory.sizeof_deep(new Node()), histogram.bytes(Node.class));
+      }
+
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void histogram_sums_to_the_totals() {
+    HeapHistogram histogram = Memory.sizeof_parallel(graph());
+
+    long count = 0;
+    long bytes = 0;
+
+    for (Class<?> clazz : histogram.classes()) {
+      count += histogram.count(clazz);
+      bytes += histogram.bytes(clazz);
+    }
+
+    assertEquals(histogram.count(), count);
+    assertEquals(histogram.bytes(), bytes);
+    assertTrue(histogram.report().startsWith(histogram.toString()));
+  }
+
+  /*
+   * The fields a lambda capturing a long[], a String and an int is given.
+   */
+  static final class Captured {
+    final long[] array;
+    final String string;
+    final int    value;
+
+    Captured(long[] array, String string, int value) {
+      this.array  = array;
+      this.string = string;
+      this.value  = value;
+    }
+  }
+
+  /*
+   * From JDK 15 the class of a capturing lambda is a hidden class,
+   * whose field offsets Unsafe will not give.
+   */
+  @Test
+  void capturing_lambdas_are_sized_like_classes() {
+    long[] array  = new long[100];
+    String string = "lambda";
+    int    value  = 7;
+
+    Supplier<Object> lambda     = () -> array.length + string + value;
+    Captured         equivalent = new Captured(array, string, value);
+
+    assertEquals(Memory.sizeof(equivalent), Memory.sizeof(lambda));
+    assertEquals(Memory.sizeof_deep(equivalent), Memory.sizeof_deep(lambda));
+    assertEquals(Memory.sizeof_deep(lambda), Memory.sizeof_parallel(lambda).bytes());
+  }
+
+  @Test
+  void capturing_lambdas_cannot_be_copied_off_heap() {
+    String           string = "lambda";
+    Supplier<Object> lambda = () -> string;
+
+    assumeTrue(!Layout.of(lambda.getClass()).exact);
+
+    long p = Memory.malloc(64);
+
+    assertThrows(IllegalArgumentException.class, () -> Memory.memput(p, lambda));
+
+    Memory.free(p);
+  }
+}
@@ -0,0 +1,349 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the {@link OffHeapArray} types against plain Java arrays, applying
+ * the same sets, fills and copies to both and comparing them afterwards.
+ *
+ * @author  Jack Green (ja-green)
+ */
+class OffHeapArrayTest {
+  private static final int LENGTH = 100;
+
+  private final Random random = new Random(42);
+
+  /*
+   * Copy ranges, including those overlapping in either direction and
+   * those reaching the first or last element.
+   */
+  private static final int[][] COPIES = {
+    { 0, 10, 50 }, { 10, 0, 50 }, { 0, 1, 99 }, { 1, 0, 99 },
+    { 0, 0, 100 }, { 40, 40, 20 }, { 99, 0, 1 }, { 0, 99, 1 },
+    { 30, 33, 67 }, { 33, 30, 67 }, { 5, 95, 5 }, { 50, 50, 0 }
+  };
+
+  private static long[] contents(LongArray array) {
+    long[] out = new long[(int) array.length()];
+
+    array.copy_to(0, out, 0, out.length);
+
+    for (int i = 0; i < out.length; i++)
+      assertEquals(out[i], array.get(i));
+
+    return out;
+  }
+
+  private static int[] contents(IntArray array) {
+    int[] out = new int[(int) array.length()];
+
+    array.copy_to(0, out, 0, out.length);
+
+    for (int i = 0; i < out.length; i++)
+      assertEquals(out[i], array.get(i));
+
+    return out;
+  }
+
+  private static double[] contents(DoubleArray array) {
+    double[] out = new double[(int) array.length()];
+
+    array.copy_to(0, out, 0, out.length);
+
+    for (int i = 0; i < out.length; i++)
+      assertEquals(out[i], array.get(i));
+
+    return out;
+  }
+
+  private static byte[] contents(ByteArray array) {
+    byte[] out = new byte[(int) array.length()];
+
+    array.copy_to(0, out, 0, out.length);
+
+    for (int i = 0; i < out.length; i++)
+      assertEquals(out[i], array.get(i));
+
+    return out;
+  }
+
+  @Test
+  void long_array_matches_a_java_array() {
+    long[] model = new long[LENGTH];
+
+    try (LongArray array = new LongArray(LENGTH); LongArray other = new LongArray(LENGTH)) {
+      assertEquals(LENGTH, array.length());
+      assertEquals(LENGTH * 8L, array.bytes());
+      assertArrayEquals(model, contents(array));
+
+      array.fill(-3L);
+      Arrays.fill(model, -3L);
+      assertArrayEquals(model, contents(array));
+
+      for (int i = 0; i < LENGTH; i++) {
+        model[i] = random.nextLong();
+        array.set(i, model[i]);
+      }
+
+      assertArrayEquals(model, contents(array));
+
+      long[] src = new long[LENGTH + 10];
+
+      for (int i = 0; i < src.length; i++)
+        src[i] = random.nextLong();
+
+      array.copy_from(src, 7, 90, 10);
+      System.arraycopy(src, 7, model, 90, 10);
+      assertArrayEquals(model, contents(array));
+
+      long[] dest = new long[LENGTH + 10];
+      long[] expected = dest.clone();
+
+      array.copy_to(3, dest, 5, 97);
+      System.arraycopy(model, 3, expected, 5, 97);
+      assertArrayEquals(expected, dest);
+
+      for (int[] c : COPIES) {
+        array.copy(c[0], array, c[1], c[2]);
+        System.arraycopy(model, c[0], model, c[1], c[2]);
+        assertArrayEquals(model, contents(array));
+
+        long[] copied = contents(other);
+
+        array.copy(c[0], other, c[1], c[2]);
+        System.arraycopy(model, c[0], copied, c[1], c[2]);
+        assertArrayEquals(copied, contents(other));
+      }
+
+      array.clear();
+      assertArrayEquals(new long[LENGTH], contents(array));
+    }
+  }
+
+  @Test
+  void int_array_matches_a_java_array() {
+    int[] model = new int[LENGTH];
+
+    try (IntArray array = new IntArray(LENGTH); IntArray other = new IntArray(LENGTH)) {
+      assertEquals(LENGTH, array.length());
+      assertEquals(LENGTH * 4L, array.bytes());
+      assertArrayEquals(model, contents(array));
+
+      array.fill(-3);
+      Arrays.fill(model, -3);
+      assertArrayEquals(model, contents(array));
+
+      for (int i = 0; i < LENGTH; i++) {
+        model[i] = random.nextInt();
+        array.set(i, model[i]);
+      }
+
+      assertArrayEquals(model, contents(array));
+
+      int[] src = new int[LENGTH + 10];
+
+      for (int i = 0; i < src.length; i++)
+        src[i] = random.nextInt();
+
+      array.copy_from(src, 7, 90, 10);
+      System.arraycopy(src, 7, model, 90, 10);
+      assertArrayEquals(model, contents(array));
+
+      int[] dest = new int[LENGTH + 10];
+      int[] expected = dest.clone();
+
+      array.copy_to(3, dest, 5, 97);
+      System.arraycopy(model, 3, expected, 5, 97);
+      assertArrayEquals(expected, dest);
+
+      for (int[] c : COPIES) {
+        array.copy(c[0], array, c[1], c[2]);
+        System.arraycopy(model, c[0], model, c[1], c[2]);
+        assertArrayEquals(model, contents(array));
+
+        int[] copied = contents(other);
+
+        array.copy(c[0], other, c[1], c[2]);
+        System.arraycopy(model, c[0], copied, c[1], c[2]);
+        assertArrayEquals(copied, contents(other));
+      }
+
+      array.clear();
+      assertArrayEquals(new int[LENGTH], contents(array));
+    }
+  }
+
+  @Test
+  void double_array_matches_a_java_array() {
+    double[] model = new double[LENGTH];
+
+    try (DoubleArray array = new DoubleArray(LENGTH); DoubleArray other = new DoubleArray(LENGTH)) {
+      assertEquals(LENGTH, array.length());
+      assertEquals(LENGTH * 8L, array.bytes());
+      assertArrayEquals(model, contents(array));
+
+      array.fill(-0.5);
+      Arrays.fill(model, -0.5);
+      assertArrayEquals(model, contents(array));
+
+      for (int i = 0; i < LENGTH; i++) {
+        model[i] = random.nextGaussian();
+        array.set(i, model[i]);
+      }
+
+      assertArrayEquals(model, contents(array));
+
+      double[] src = new double[LENGTH + 10];
+
+      for (int i = 0; i < src.length; i++)
+        src[i] = random.nextGaussian();
+
+      array.copy_from(src, 7, 90, 10);
+      System.arraycopy(src, 7, model, 90, 10);
+      assertArrayEquals(model, contents(array));
+
+      double[] dest = new double[LENGTH + 10];
+      double[] expected = dest.clone();
+
+      array.copy_to(3, dest, 5, 97);
+      System.arraycopy(model, 3, expected, 5, 97);
+      assertArrayEquals(expected, dest);
+
+      for (int[] c : COPIES) {
+        array.copy(c[0], array, c[1], c[2]);
+        System.arraycopy(model, c[0], model, c[1], c[2]);
+        assertArrayEquals(model, contents(array));
+
+        double[] copied = contents(other);
+
+        array.copy(c[0], other, c[1], c[2]);
+        System.arraycopy(model, c[0], copied, c[1], c[2]);
+        assertArrayEquals(copied, contents(other));
+      }
+
+      array.clear();
+      assertArrayEquals(new double[LENGTH], contents(array));
+    }
+  }
+
+  @Test
+  void byte_array_matches_a_java_array() {
+    byte[] model = new byte[LENGTH];
+
+    try (ByteArray array = new ByteArray(LENGTH); ByteArray other = new ByteArray(LENGTH)) {
+      assertEquals(LENGTH, array.length());
+      assertEquals(LENGTH, array.bytes());
+      assertArrayEquals(model, contents(array));
+
+      array.fill((byte) -3);
+      Arrays.fill(model, (byte) -3);
+      assertArrayEquals(model, contents(array));
+
+      random.nextBytes(model);
+
+      for (int i = 0; i < LENGTH; i++)
+        array.set(i, model[i]);
+
+      assertArrayEquals(model, contents(array));
+
+      byte[] src = new byte[LENGTH + 10];
+
+      random.nextBytes(src);
+
+      array.copy_from(src, 7, 90, 10);
+      System.arraycopy(src, 7, model, 90, 10);
+      assertArrayEquals(model, contents(array));
+
+      byte[] dest = new byte[LENGTH + 10];
+      byte[] expected = dest.clone();
+
+      array.copy_to(3, dest, 5, 97);
+      System.arraycopy(model, 3, expected, 5, 97);
+      assertArrayEquals(expected, dest);
+
+      for (int[] c : COPIES) {
+        array.copy(c[0], array, c[1], c[2]);
+        System.arraycopy(model, c[0], model, c[1], c[2]);
+        assertArrayEquals(model, contents(array));
+
+        byte[] copied = contents(other);
+
+        array.copy(c[0], other, c[1], c[2]);
+        System.arraycopy(model, c[0], copied, c[1], c[2]);
+        assertArrayEquals(copied, contents(other));
+      }
+
+      array.clear();
+      assertArrayEquals(new byte[LENGTH], contents(array));
+    }
+  }
+
+  @Test
+  void fill_covers_every_length() {
+    for (int length = 0; length < 40; length++) {
+      try (LongArray longs = new LongArray(length); IntArray ints = new IntArray(length);
+           DoubleArray doubles = new DoubleArray(length); ByteArray bytes = new ByteArray(length)) {
+        longs.fill(7L);
+        ints.fill(7);
+        doubles.fill(7.0);
+        bytes.fill((byte) 7);
+
+        for (int i = 0; i < length; i++) {
+          assertEquals(7L, longs.get(i));
+          assertEquals(7, ints.get(i));
+          assertEquals(7.0, doubles.get(i));
+          assertEquals(7, bytes.get(i));
+        }
+      }
+    }
+  }
+
+  @Test
+  void indexes_past_two_billion_elements() {
+    long length = (1L << 31) + 16;
+
+    /*
+     * The memory is allocated but only the pages touched here are used.
+     */
+    try (ByteArray array = new ByteArray(length)) {
+      long[] indices = { 0, Integer.MAX_VALUE - 1, Integer.MAX_VALUE, 1L << 31, length - 1 };
+
+      for (long i : indices)
+        array.set(i, (byte) i);
+
+      for (long i : indices)
+        assertEquals((byte) i, array.get(i));
+
+      array.copy(length - 8, array, length - 16, 8);
+      assertEquals((byte) (length - 1), array.get(length - 9));
+
+      byte[] tail = new byte[4];
+
+      array.copy_to(length - 4, tail, 0, 4);
+      assertEquals((byte) (length - 1), tail[3]);
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link SpscRingBuffer} and {@link MpscRingBuffer}, both from a single
+ * thread and with producers and a consumer running at once.
+ *
+ * @author  Jack Green (ja-green)
+ */
+class RingBufferTest {
+  private static final int MESSAGES = 200_000;
+
+  @Test
+  void spsc_fills_drains_and_wraps() {
+    try (RingBuffer ring = new SpscRingBuffer(8, 8)) {
+      fills_drains_and_wraps(ring);
+    }
+  }
+
+  @Test
+  void mpsc_fills_drains_and_wraps() {
+    try (RingBuffer ring = new MpscRingBuffer(8, 8)) {
+      fills_drains_and_wraps(ring);
+    }
+  }
+
+  private static void fills_drains_and_wraps(RingBuffer ring) {
+    long message = Memory.malloc(8);
+    long next    = 0;
+    long read    = 0;
+
+    for (int round = 0; round < 10; round++) {
+      while (true) {
+        Memory.memput(message, next);
+
+        if (!ring.offer(message)) break;
+        next++;
+      }
+
+      assertEquals(ring.capacity(), next - read);
+
+      while (ring.poll(message))
+        assertEquals(read++, Memory.memget_l(message));
+
+      assertEquals(next, read);
+      assertFalse(ring.poll(message));
+    }
+
+    Memory.free(message);
+  }
+
+  @Test
+  void batches_are_claimed_and_released_together() {
+    try (RingBuffer ring = new SpscRingBuffer(16, 4)) {
+      assertEquals(-1, ring.claim(17));
+
+      long sequence = ring.claim(10);
+      assertEquals(0, sequence);
+
+      for (int i = 0; i < 10; i++)
+        Memory.memput(ring.pointer(sequence + i), i);
+
+      assertEquals(0, ring.available(16));
+      ring.commit(sequence, 10);
+      assertEquals(10, ring.available(16));
+      assertEquals(4, ring.available(4));
+
+      assertEquals(-1, ring.claim(7));
+
+      for (int i = 0; i < 10; i++)
+        assertEquals(i, Memory.memget_i(ring.pointer(ring.head() + i)));
+
+      ring.release(10);
+      assertEquals(10, ring.head());
+      assertTrue(ring.claim(16) >= 0);
+    }
+  }
+
+  @Test
+  void spsc_delivers_in_order_across_threads() throws Exception {
+    try (RingBuffer ring = new SpscRingBuffer(64, 8)) {
+      Thread producer = producer(ring, 0, MESSAGES);
+      producer.start();
+
+      long message = Memory.malloc(8);
+
+      for (long expected = 0; expected < MESSAGES; ) {
+        if (ring.poll(message))
+          assertEquals(expected++, Memory.memget_l(message));
+        else
+          Thread.yield();
+      }
+
+      producer.join();
+      Memory.free(message);
+    }
+  }
+
+  @Test
+  void mpsc_delivers_every_message_in_producer_order() throws Exception {
+    int producers = 4;
+
+    try (RingBuffer ring = new MpscRingBuffer(64, 8)) {
+      List<Thread> threads = new ArrayList<>();
+
+      for (int p = 0; p < producers; p++) {
+        Thread t = producer(ring, (long) p << 32, MESSAGES / producers);
+        threads.add(t);
+        t.start();
+      }
+
+      long   message = Memory.malloc(8);
+      long[] next    = new long[producers];
+
+      for (int received = 0; received < MESSAGES; ) {
+        if (!ring.poll(message)) {
+          Thread.yield();
+          continue;
+        }
+
+        long value    = Memory.memget_l(message);
+        int  producer = (int) (value >>> 32);
+
+        assertEquals(next[producer]++, value & 0xFFFFFFFFL);
+        received++;
+      }
+
+      for (Thread t : threads)
+        t.join();
+
+      for (long n : next)
+        assertEquals(MESSAGES / producers, n);
+
+      Memory.free(message);
+    }
+  }
+
+  private static Thread producer(RingBuffer ring, long tag, int count) {
+    return new Thread(() -> {
+      long message = Memory.malloc(8);
+
+      for (long i = 0; i < count; ) {
+        Memory.memput(message, tag | i);
+
+        if (ring.offer(message)) i++;
+        else                     Thread.yield();
+      }
+
+      Memory.free(message);
+    });
+  }
+}
@@ -0,0 +1,121 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link SlabAllocator}, including blocks freed by a thread
+ * other than the one which allocated them.
+ *
+ * @author  Jack Green (ja-green)
+ */
+class SlabAllocatorTest {
+
+  private static List<long[]> allocate(int count, int seed) {
+    List<long[]> blocks = new ArrayList<>();
+
+    for (int i = 0; i < count; i++) {
+      long bytes   = 1 + (i * 31 + seed) % (SlabAllocator.MAX_SMALL + 64);
+      long pointer = SlabAllocator.malloc(bytes);
+
+      assertEquals(0, pointer & 7);
+
+      Memory.memset(pointer, (byte) (i + seed), bytes);
+      blocks.add(new long[] { pointer, bytes, i + seed });
+    }
+
+    return blocks;
+  }
+
+  private static void check_and_free(List<long[]> blocks) {
+    for (long[] block : blocks) {
+      for (long i = 0; i < block[1]; i++)
+        assertEquals((byte) block[2], Memory.memget_b(block[0] + i));
+
+      SlabAllocator.free(block[0]);
+    }
+  }
+
+  @Test
+  void blocks_of_every_size_do_not_overlap() {
+    check_and_free(allocate(5000, 0));
+  }
+
+  @Test
+  void freed_blocks_are_reused() {
+    long pointer = SlabAllocator.malloc(40);
+    SlabAllocator.free(pointer);
+
+    assertEquals(pointer, SlabAllocator.malloc(40));
+    SlabAllocator.free(pointer);
+  }
+
+  @Test
+  void calloc_zeroes_reused_blocks() {
+    long dirty = SlabAllocator.malloc(100);
+    Memory.memset(dirty, (byte) -1, 100);
+    SlabAllocator.free(dirty);
+
+    long pointer = SlabAllocator.calloc(100);
+
+    for (int i = 0; i < 100; i++)
+      assertEquals(0, Memory.memget_b(pointer + i));
+
+    SlabAllocator.free(pointer);
+  }
+
+  @Test
+  void blocks_move_between_threads_through_the_depot() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    try {
+      for (int round = 0; round < 4; round++) {
+        List<Future<List<long[]>>> allocated = new ArrayList<>();
+
+        for (int t = 0; t < 4; t++) {
+          int seed = round * 4 + t;
+          allocated.add(pool.submit(() -> allocate(2000, seed)));
+        }
+
+        List<Future<?>> freed = new ArrayList<>();
+
+        /*
+         * Each thread frees the blocks allocated by another.
+         */
+        for (int t = 0; t < 4; t++) {
+          List<long[]> blocks = allocated.get((t + 1) % 4).get();
+          freed.add(pool.submit(() -> check_and_free(blocks)));
+        }
+
+        for (Future<?> f : freed)
+          f.get();
+      }
+
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link StructCodec} against the off-heap format of {@link Memory}.
+ *
+ * @author  Jack Green (ja-green)
+ */
+class StructCodecTest {
+  static class Sample {
+    long    a;
+    double  b;
+    int     c;
+    float   d;
+    char    e;
+    short   f;
+    byte    g;
+    boolean h;
+  }
+
+  private static Sample sample() {
+    Sample s = new Sample();
+
+    s.a = -1L << 33;
+    s.b = Math.PI;
+    s.c = 0x12345678;
+    s.d = 1.5f;
+    s.e = 'x';
+    s.f = -7;
+    s.g = 9;
+    s.h = true;
+
+    return s;
+  }
+
+  @Test
+  void round_trips_and_matches_memput() throws Throwable {
+    StructCodec<Sample> codec = StructCodec.of(Sample.class);
+    Sample              s     = sample();
+
+    assertEquals(Memory.sizeof(s), codec.size());
+
+    long p = Memory.calloc(codec.size());
+    long q = Memory.calloc(codec.size());
+
+    codec.write(s, p);
+    Memory.memput(q, s);
+
+    /*
+     * The header bytes are not written by either.
+     */
+    assertTrue(Memory.memcmp(p, q, codec.size()));
+
+    Sample r = codec.read(p);
+
+    assertEquals(s.a, r.a);
+    assertEquals(s.b, r.b);
+    assertEquals(s.c, r.c);
+    assertEquals(s.d, r.d);
+    assertEquals(s.e, r.e);
+    assertEquals(s.f, r.f);
+    assertEquals(s.g, r.g);
+    assertEquals(s.h, r.h);
+
+    MethodHandle get = codec.getter("c");
+    MethodHandle set = codec.setter("c");
+
+    set.invoke(p, 42);
+    assertEquals(42, (int) get.invoke(p));
+
+    Memory.free(p);
+    Memory.free(q);
+  }
+
+  @Test
+  void unsafe_is_not_exposed() {
+    Class<?> codec = StructCodec.of(Sample.class).getClass();
+
+    for (Field field : codec.getDeclaredFields())
+      assertFalse(Modifier.isPublic(field.getModifiers()), field.getName());
+  }
+}
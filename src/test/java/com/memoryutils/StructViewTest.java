@@ -0,0 +1,153 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests {@link StructView} against objects written and read by {@link Memory}.
+ *
+ * @author  Jack Green (ja-green)
+ */
+class StructViewTest {
+  static class Sample {
+    long    a;
+    double  b;
+    int     c;
+    float   d;
+    char    e;
+    short   f;
+    byte    g;
+    boolean h;
+  }
+
+  static class Named {
+    int    id;
+    String name;
+  }
+
+  private static Sample sample(int i) {
+    Sample s = new Sample();
+
+    s.a = (-1L << 33) + i;
+    s.b = Math.PI * i;
+    s.c = 0x12345678 ^ i;
+    s.d = 1.5f + i;
+    s.e = (char) ('a' + i);
+    s.f = (short) (-7 - i);
+    s.g = (byte) (9 + i);
+    s.h = (i & 1) == 0;
+
+    return s;
+  }
+
+  private static void check(Sample s, StructView view) {
+    assertEquals(s.a, view.get_l(view.index("a")));
+    assertEquals(s.b, view.get_d(view.index("b")));
+    assertEquals(s.c, view.get_i(view.index("c")));
+    assertEquals(s.d, view.get_f(view.index("d")));
+    assertEquals(s.e, view.get_c(view.index("e")));
+    assertEquals(s.f, view.get_s(view.index("f")));
+    assertEquals(s.g, view.get_b(view.index("g")));
+    assertEquals(s.h, view.get_z(view.index("h")));
+  }
+
+  @Test
+  void reads_the_fields_written_by_memput() {
+    StructView view = new StructView(Sample.class);
+    Sample     s    = sample(3);
+
+    assertEquals(Memory.sizeof(s), view.size());
+
+    long p = Memory.calloc(view.size());
+
+    Memory.memput(p, s);
+    check(s, view.wrap(p));
+
+    assertEquals(p, view.pointer());
+    assertEquals(-1, view.index("none"));
+
+    Memory.free(p);
+  }
+
+  @Test
+  void writes_fields_read_by_memget_object() {
+    StructView view = new StructView(Sample.class);
+    Sample     s    = sample(5);
+
+    long p = Memory.calloc(view.size());
+
+    view.wrap(p);
+    view.put_l(view.index("a"), s.a);
+    view.put_d(view.index("b"), s.b);
+    view.put_i(view.index("c"), s.c);
+    view.put_f(view.index("d"), s.d);
+    view.put_c(view.index("e"), s.e);
+    view.put_s(view.index("f"), s.f);
+    view.put_b(view.index("g"), s.g);
+    view.put_z(view.index("h"), s.h);
+
+    Sample r = (Sample) Memory.memget_object(p, Sample.class);
+
+    assertEquals(s.a, r.a);
+    assertEquals(s.b, r.b);
+    assertEquals(s.c, r.c);
+    assertEquals(s.d, r.d);
+    assertEquals(s.e, r.e);
+    assertEquals(s.f, r.f);
+    assertEquals(s.g, r.g);
+    assertEquals(s.h, r.h);
+
+    Memory.free(p);
+  }
+
+  @Test
+  void wraps_each_element_of_an_array() {
+    StructView view  = new StructView(Sample.class);
+    int        count = 100;
+
+    long p = Memory.calloc(count * view.size());
+
+    for (int i = 0; i < count; i++)
+      Memory.memput(p + i * view.size(), sample(i));
+
+    int c = view.index("c");
+
+    for (int i = 0; i < count; i++) {
+      view.wrap(p + i * view.size());
+      view.put_i(c, view.get_i(c) + 1);
+    }
+
+    for (int i = 0; i < count; i++) {
+      Sample s = sample(i);
+
+      s.c++;
+      check(s, view.wrap(p + i * view.size()));
+    }
+
+    Memory.free(p);
+  }
+
+  @Test
+  void rejects_classes_with_reference_fields() {
+    assertThrows(IllegalArgumentException.class, () -> new StructView(Named.class));
+  }
+}
@@ -0,0 +1,79 @@
+package com.memoryutils;
+
+/*
+ * (C) Copyright 2017 Jack Green.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests sizing records, whose field offsets Unsafe will not give,
+ * against classes with the same fields.
+ *
+ * @author  Jack Green (ja-green)
+ */
+class RecordTest {
+
+  record Point(long x, int y, byte z, Object label, int[] data) {}
+
+  static final class Equivalent {
+    long   x;
+    int    y;
+    byte   z;
+    Object label;
+    int[]  data;
+  }
+
+  record Empty() {}
+
+  record Bytes(byte a, byte b, byte c) {}
+
+  static final class EquivalentBytes {
+    byte a;
+    byte b;
+    byte c;
+  }
+
+  @Test
+  void records_are_sized_like_classes() {
+    Point      point      = new Point(1, 2, (byte) 3, "label", new int[10]);
+    Equivalent equivalent = new Equivalent();
+
+    equivalent.label = point.label();
+    equivalent.data  = point.data();
+
+    assertEquals(Memory.sizeof(equivalent), Memory.sizeof(point));
+    assertEquals(Memory.sizeof_deep(equivalent), Memory.sizeof_deep(point));
+    assertEquals(Memory.sizeof_deep(point), Memory.sizeof_parallel(point).bytes());
+
+    assertEquals(Memory.sizeof_deep(new Object()), Memory.sizeof_deep(new Empty()));
+    assertEquals(Memory.sizeof_deep(new EquivalentBytes()), Memory.sizeof_deep(new Bytes((byte) 1, (byte) 2, (byte) 3)));
+  }
+
+  @Test
+  void records_cannot_be_copied_off_heap() {
+    Point point = new Point(1, 2, (byte) 3, null, null);
+    long  p     = Memory.malloc(64);
+
+    assertThrows(IllegalArgumentException.class, () -> Memory.memput(p, point));
+    assertThrows(IllegalArgumentException.class, () -> StructCodec.of(Bytes.class));
+    assertThrows(IllegalArgumentException.class, () -> Memory.memget_object(p, Bytes.class));
+
+    Memory.free(p);
+  }
+}